@@ -15,6 +15,7 @@
  */
 package io.yupiik.fusion.mcp.demo;
 
+import io.yupiik.fusion.json.JsonMapper;
 import io.yupiik.fusion.testing.Fusion;
 import io.yupiik.fusion.testing.FusionSupport;
 import org.junit.jupiter.api.Test;
@@ -23,10 +24,13 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.util.HashMap;
+import java.util.Map;
 
 import static io.yupiik.fusion.testing.assertion.JsonAsserts.assertJsonEquals;
 import static java.net.http.HttpResponse.BodyHandlers.ofString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @FusionSupport
 class DemoTest {
@@ -68,10 +72,10 @@ class DemoTest {
                           "result": {
                             "capabilities": {
                               "prompts": {
-                                "listChanged": false
+                                "listChanged": true
                               },
                               "tools": {
-                                "listChanged": false
+                                "listChanged": true
                               }
                             },
                             "instructions": "Use tool",
@@ -87,7 +91,7 @@ class DemoTest {
     }
 
     @Test
-    void listTools(@Fusion final URI mcpEndpoint, @Fusion final HttpClient http) throws IOException, InterruptedException {
+    void listTools(@Fusion final URI mcpEndpoint, @Fusion final HttpClient http, @Fusion final JsonMapper jsons) throws IOException, InterruptedException {
         final var res = http.send(HttpRequest.newBuilder()
                         .POST(HttpRequest.BodyPublishers.ofString("""
                                 {
@@ -103,6 +107,13 @@ class DemoTest {
                 ofString());
 
         assertEquals(200, res.statusCode());
+
+        // catalog hash is opaque, just check it is there and can be used to revalidate the list
+        @SuppressWarnings("unchecked") final var body = (Map<String, Object>) jsons.fromString(Object.class, res.body());
+        @SuppressWarnings("unchecked") final var result = new HashMap<>((Map<String, Object>) body.get("result"));
+        @SuppressWarnings("unchecked") final var meta = (Map<String, Object>) result.remove("_meta");
+        final var hash = meta.get("io.yupiik.fusion.mcp/catalogHash");
+        assertNotNull(hash);
         assertJsonEquals("""
                         {
                           "jsonrpc": "2.0",
@@ -134,7 +145,39 @@ class DemoTest {
                             ]
                           }
                         }""",
-                res.body());
+                jsons.toString(Map.of("jsonrpc", body.get("jsonrpc"), "id", body.get("id"), "result", result)));
+
+        final var notModified = http.send(HttpRequest.newBuilder()
+                        .POST(HttpRequest.BodyPublishers.ofString("""
+                                {
+                                  "jsonrpc": "2.0",
+                                  "id": 2,
+                                  "method": "tools/list",
+                                  "params": {
+                                    "_meta": {
+                                      "io.yupiik.fusion.mcp/ifNoneMatch": "%s"
+                                    }
+                                  }
+                                }""".formatted(hash)))
+                        .uri(mcpEndpoint)
+                        .header("accept", "application/json")
+                        .header("content-type", "application/json")
+                        .build(),
+                ofString());
+        assertEquals(200, notModified.statusCode());
+        assertJsonEquals("""
+                        {
+                          "jsonrpc": "2.0",
+                          "id": 2,
+                          "result": {
+                            "_meta": {
+                              "io.yupiik.fusion.mcp/catalogHash": "%s",
+                              "io.yupiik.fusion.mcp/notModified": true
+                            },
+                            "tools": []
+                          }
+                        }""".formatted(hash),
+                notModified.body());
     }
 
     @Test
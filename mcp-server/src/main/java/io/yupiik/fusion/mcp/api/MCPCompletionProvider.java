@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+// completion/complete source of a prompt argument or a resource template variable
+public interface MCPCompletionProvider {
+    // "ref/prompt" or "ref/resource"
+    String refType();
+
+    // prompt name or resource uri template
+    String ref();
+
+    // prompt argument or template variable name
+    String argument();
+
+    // static candidates, indexed once for fast prefix lookups, when null complete() is used
+    default List<String> values() {
+        return null;
+    }
+
+    // dynamic candidates for a prefix, arguments are the already resolved ones (context),
+    // results are cached for fusion.mcp.completion.cacheTtl
+    default CompletionStage<List<String>> complete(final String prefix, final Map<String, String> arguments) {
+        return completedFuture(List.of());
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.api;
+
+import io.yupiik.fusion.framework.build.api.metadata.BeanMetadataAlias;
+
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+// a JSON-RPC method reading a single resource, its URI is set with @BeanMetadata(name = "mcp.resource.uri", value = "...")
+// or mcp.resource.uriTemplate for a templated one (optional mcp.resource.mimeType, mcp.resource.title and mcp.resource.description),
+// it gets the read uri as "uri" parameter and template variables as parameters with the same name
+@Retention(SOURCE)
+@BeanMetadataAlias(name = "mcp.type", value = "resource")
+public @interface MCPResource {
+}
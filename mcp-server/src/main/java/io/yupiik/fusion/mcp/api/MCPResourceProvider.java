@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.api;
+
+import io.yupiik.fusion.http.server.api.Request;
+import io.yupiik.fusion.mcp.model.ListResourceTemplatesResponse;
+import io.yupiik.fusion.mcp.model.ListResourcesResponse;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+// bean exposing a set of resources, call MCPJSONRPCProtocol#reload() when the set changes
+public interface MCPResourceProvider {
+    // descriptors only, contents are only produced by read() so listing never loads them
+    List<ListResourcesResponse.Resource> resources();
+
+    // called for one of the listed uris, returns a ReadResourceResponse or a BinaryResource (blob streamed when written)
+    CompletionStage<?> read(String uri, Request request);
+
+    // RFC 6570 level 1 or 2 uri templates ({var}, {+var}, {#var}) of resources read on demand
+    default List<ListResourceTemplatesResponse.ResourceTemplate> templates() {
+        return List.of();
+    }
+
+    // local file backing the resource if any, it is watched while clients are subscribed to the uri,
+    // other resources notify their changes with MCPResourceSubscriptions#updated(uri)
+    default Optional<Path> localFile(final String uri) {
+        return Optional.empty();
+    }
+
+    // called for a uri matching one of the templates, variables are decoded
+    default CompletionStage<?> read(final String uri, final Map<String, String> variables, final Request request) {
+        return read(uri, request);
+    }
+}
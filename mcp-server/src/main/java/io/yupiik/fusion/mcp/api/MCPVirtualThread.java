@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.api;
+
+import io.yupiik.fusion.framework.build.api.metadata.BeanMetadataAlias;
+
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+// the tool is executed on a virtual thread, for blocking tools (JDBC, HTTP clients, ...)
+@Retention(SOURCE)
+@BeanMetadataAlias(name = "mcp.executor", value = "virtual")
+public @interface MCPVirtualThread {
+}
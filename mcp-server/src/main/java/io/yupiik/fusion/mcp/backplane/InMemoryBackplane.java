@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.backplane;
+
+import io.yupiik.fusion.framework.api.scope.DefaultScoped;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// single node backplane: nothing to route, only keeps session states alive while they are refreshed
+@DefaultScoped
+public class InMemoryBackplane implements MCPBackplane {
+    private final Map<String, Entry> states = new ConcurrentHashMap<>();
+    private final AtomicInteger saves = new AtomicInteger();
+    private final long ttl;
+
+    public InMemoryBackplane(final MCPServerConfiguration configuration) {
+        // states are refreshed by the session eviction timer once per idle timeout, keep some margin
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(configuration.session().idleTimeout()) * 2;
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public void start(final Listener listener) {
+        // no-op
+    }
+
+    @Override
+    public void save(final SessionState state) {
+        final long now = System.nanoTime();
+        states.put(state.id(), new Entry(state, now));
+        if ((saves.incrementAndGet() & 255) == 0) { // amortized purge of never reloaded states
+            states.values().removeIf(it -> now - it.lastSeen() > ttl);
+        }
+    }
+
+    @Override
+    public SessionState load(final String id) {
+        final var entry = states.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.lastSeen() > ttl) {
+            states.remove(id, entry);
+            return null;
+        }
+        return entry.state();
+    }
+
+    @Override
+    public void remove(final String id) {
+        states.remove(id);
+    }
+
+    @Override
+    public void publish(final String sessionId, final long eventId, final ByteBuffer frame) {
+        // no-op: the session is only on this node
+    }
+
+    @Override
+    public void close() {
+        states.clear();
+    }
+
+    private record Entry(SessionState state, long lastSeen) {
+    }
+}
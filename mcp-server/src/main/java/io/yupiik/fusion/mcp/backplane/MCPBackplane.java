@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.backplane;
+
+import io.yupiik.fusion.mcp.model.LoggingLevel;
+
+import java.nio.ByteBuffer;
+
+// shares sessions and routes server to client events between nodes so any node can serve any MCP session,
+// implementations are beans selected by name (fusion.mcp.backplane.type) and must not do anything before start()
+public interface MCPBackplane extends AutoCloseable {
+    String name();
+
+    void start(Listener listener);
+
+    // creates or refreshes (keeps alive) a session
+    void save(SessionState state);
+
+    // null if unknown or expired
+    SessionState load(String id);
+
+    // explicit termination (not idle eviction)
+    void remove(String id);
+
+    // routes an encoded SSE frame to the node(s) holding the session stream
+    void publish(String sessionId, long eventId, ByteBuffer frame);
+
+    @Override
+    void close();
+
+    record SessionState(String id, LoggingLevel loggingLevel) {
+    }
+
+    interface Listener {
+        void onSave(SessionState state);
+
+        void onRemove(String id);
+
+        void onEvent(String sessionId, long eventId, ByteBuffer frame);
+    }
+}
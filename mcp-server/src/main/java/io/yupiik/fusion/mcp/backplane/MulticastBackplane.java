@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.backplane;
+
+import io.yupiik.fusion.framework.api.scope.DefaultScoped;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import io.yupiik.fusion.mcp.model.LoggingLevel;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.logging.Level.SEVERE;
+import static java.util.logging.Level.WARNING;
+
+// UDP multicast backplane: each node keeps a replica of the session states and events are broadcasted,
+// nodes holding the session stream deliver them.
+// messages are signed (HMAC-SHA256) with the shared secret, other datagrams are ignored.
+// delivery is best effort: messages bigger than a datagram (~64KiB) are not sent and UDP losses are not retried,
+// states are re-saved at each idle timeout check so a lost state converges but a lost event is missed by the client,
+// losses are detected with per node sequence numbers, logged and counted (lostMessages()),
+// a datagram not newer than the last one of its node (duplicated, reordered or replayed) is dropped
+@DefaultScoped
+public class MulticastBackplane implements MCPBackplane {
+    private static final int MAX_DATAGRAM = 65_507;
+    private static final String HMAC = "HmacSHA256";
+    private static final int HMAC_LENGTH = 32;
+    static final byte SAVE = 1;
+    static final byte REMOVE = 2;
+    static final byte EVENT = 3;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final Map<String, Entry> states = new ConcurrentHashMap<>();
+    private final Map<Long, NodeSequence> sequences = new HashMap<>(); // receiver thread only
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder lost = new LongAdder();
+    private final long nodeId = new SecureRandom().nextLong();
+    private final MCPServerConfiguration configuration;
+    private final Mac mac; // prototype, cloned per message
+    private final long ttl;
+    private long lastNodeEviction = System.nanoTime(); // receiver thread only
+    private volatile boolean running;
+    private DatagramChannel channel;
+    private InetSocketAddress target;
+    private Thread receiver;
+
+    public MulticastBackplane(final MCPServerConfiguration configuration) {
+        this.configuration = configuration;
+        this.mac = newMac(configuration.backplane().secret());
+        // states are refreshed by the session eviction timer once per idle timeout, keep some margin
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(configuration.session().idleTimeout()) * 2;
+    }
+
+    @Override
+    public String name() {
+        return "multicast";
+    }
+
+    @Override
+    public void start(final Listener listener) {
+        if (mac == null) { // anybody on the network could inject sessions and events otherwise
+            throw new IllegalStateException("Multicast backplane requires a shared secret, set fusion.mcp.backplane.secret");
+        }
+
+        final var conf = configuration.backplane();
+        try {
+            final var group = InetAddress.getByName(conf.group());
+            final var networkInterface = findInterface(conf.networkInterface());
+            channel = DatagramChannel.open(group instanceof Inet6Address ? StandardProtocolFamily.INET6 : StandardProtocolFamily.INET)
+                    .setOption(StandardSocketOptions.SO_REUSEADDR, true) // several nodes on the same machine
+                    .bind(new InetSocketAddress(conf.port()))
+                    .setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface)
+                    .setOption(StandardSocketOptions.IP_MULTICAST_TTL, conf.timeToLive())
+                    .setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+            channel.join(group, networkInterface);
+            target = new InetSocketAddress(group, conf.port());
+        } catch (final IOException e) {
+            throw new IllegalStateException("Can't start multicast backplane: " + e.getMessage(), e);
+        }
+
+        running = true;
+        receiver = new Thread(() -> receive(listener), "fusion-mcp-backplane-" + Long.toHexString(nodeId));
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    @Override
+    public void save(final SessionState state) {
+        states.put(state.id(), new Entry(state, System.nanoTime()));
+        send(SAVE, state.id(), out -> out.writeUTF(state.loggingLevel().name()));
+    }
+
+    @Override
+    public SessionState load(final String id) {
+        final var entry = states.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.lastSeen() > ttl) {
+            states.remove(id, entry);
+            return null;
+        }
+        return entry.state();
+    }
+
+    @Override
+    public void remove(final String id) {
+        states.remove(id);
+        send(REMOVE, id, out -> {
+        });
+    }
+
+    @Override
+    public void publish(final String sessionId, final long eventId, final ByteBuffer frame) {
+        send(EVENT, sessionId, out -> {
+            out.writeLong(eventId);
+            out.writeInt(frame.remaining());
+            if (frame.hasArray()) {
+                out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+            } else {
+                final var bytes = new byte[frame.remaining()];
+                frame.duplicate().get(bytes);
+                out.write(bytes);
+            }
+        });
+    }
+
+    // messages from other nodes which never arrived (detected from their sequence numbers)
+    public long lostMessages() {
+        return lost.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                logger.log(WARNING, e, e::getMessage);
+            }
+        }
+        if (receiver != null) {
+            receiver.interrupt();
+        }
+        states.clear();
+    }
+
+    private void send(final byte type, final String id, final Writer writer) {
+        if (channel == null) {
+            throw new IllegalStateException("Backplane not started");
+        }
+        try {
+            final var message = message(type, id, writer);
+            if (message != null) {
+                channel.send(message, target);
+            }
+        } catch (final IOException e) {
+            logger.log(SEVERE, e, e::getMessage);
+        }
+    }
+
+    // signed datagram: node id, sequence, type, session id, payload then the HMAC of all of it, null if too big
+    ByteBuffer message(final byte type, final String id, final Writer writer) throws IOException {
+        final var buffer = new ByteArrayOutputStream();
+        try (final var out = new DataOutputStream(buffer)) {
+            out.writeLong(nodeId);
+            out.writeLong(sequence.incrementAndGet());
+            out.writeByte(type);
+            out.writeUTF(id);
+            writer.write(out);
+        }
+        if (buffer.size() + HMAC_LENGTH > MAX_DATAGRAM) { // other nodes see it as a lost message (sequence gap)
+            logger.warning(() -> "Message for session '" + id + "' too big for the multicast backplane (" + buffer.size() + " bytes), dropping it");
+            return null;
+        }
+        final var bytes = buffer.toByteArray();
+        final var signature = mac().doFinal(bytes);
+        return ByteBuffer.allocate(bytes.length + signature.length).put(bytes).put(signature).flip();
+    }
+
+    private void receive(final Listener listener) {
+        final var buffer = ByteBuffer.allocate(MAX_DATAGRAM);
+        while (running) {
+            try {
+                buffer.clear();
+                channel.receive(buffer);
+                onDatagram(listener, buffer.flip());
+            } catch (final ClosedChannelException cce) {
+                return;
+            } catch (final IOException | RuntimeException e) {
+                if (running) {
+                    logger.log(SEVERE, e, e::getMessage);
+                }
+            }
+        }
+    }
+
+    void onDatagram(final Listener listener, final ByteBuffer datagram) throws IOException {
+        final int length = datagram.remaining() - HMAC_LENGTH;
+        if (length <= Long.BYTES * 2 + 1) {
+            logger.finest(() -> "Ignoring invalid backplane datagram");
+            return;
+        }
+
+        final var bytes = new byte[datagram.remaining()];
+        datagram.get(bytes);
+        final var mac = mac();
+        mac.update(bytes, 0, length);
+        if (!MessageDigest.isEqual(mac.doFinal(), Arrays.copyOfRange(bytes, length, bytes.length))) {
+            logger.finest(() -> "Ignoring badly signed backplane datagram");
+            return;
+        }
+        onMessage(listener, new DataInputStream(new ByteArrayInputStream(bytes, 0, length)));
+    }
+
+    private void onMessage(final Listener listener, final DataInputStream in) throws IOException {
+        final long node = in.readLong();
+        if (node == nodeId) { // our own message (multicast loop)
+            return;
+        }
+
+        final long messageSequence = in.readLong();
+        final long now = System.nanoTime();
+        final var previous = sequences.get(node);
+        if (previous != null && messageSequence <= previous.value()) { // the signature is valid for a replay too
+            logger.finest(() -> "Ignoring already received backplane message " + messageSequence + " from node " + Long.toHexString(node));
+            return;
+        }
+        sequences.put(node, new NodeSequence(messageSequence, now));
+        if (previous != null && messageSequence > previous.value() + 1) {
+            final long missed = messageSequence - previous.value() - 1;
+            lost.add(missed);
+            logger.warning(() -> "Lost " + missed + " backplane message(s) from node " + Long.toHexString(node));
+        }
+        if (now - lastNodeEviction > ttl) {
+            evictSilentNodes(now);
+        }
+
+        final byte type = in.readByte();
+        final var id = in.readUTF();
+        switch (type) {
+            case SAVE -> {
+                final var state = new SessionState(id, LoggingLevel.valueOf(in.readUTF()));
+                states.put(id, new Entry(state, System.nanoTime()));
+                listener.onSave(state);
+            }
+            case REMOVE -> {
+                states.remove(id);
+                listener.onRemove(id);
+            }
+            case EVENT -> {
+                final long eventId = in.readLong();
+                final var frame = new byte[in.readInt()];
+                in.readFully(frame);
+                listener.onEvent(id, eventId, ByteBuffer.wrap(frame));
+            }
+            default -> logger.warning(() -> "Unknown backplane message type: " + type);
+        }
+    }
+
+    // a restarted node gets a new id, forget the ones silent for longer than a session can live
+    void evictSilentNodes(final long now) {
+        lastNodeEviction = now;
+        sequences.values().removeIf(it -> now - it.lastSeen() > ttl);
+    }
+
+    int knownNodes() {
+        return sequences.size();
+    }
+
+    // Mac instances are not thread safe, the initialized prototype is cloned (cheaper than a new init)
+    private Mac mac() {
+        try {
+            return (Mac) mac.clone();
+        } catch (final CloneNotSupportedException e) {
+            return newMac(configuration.backplane().secret());
+        }
+    }
+
+    private static Mac newMac(final String secret) {
+        if (secret == null || secret.isBlank()) {
+            return null;
+        }
+        try {
+            final var mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(secret.getBytes(UTF_8), HMAC));
+            return mac;
+        } catch (final GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private NetworkInterface findInterface(final String name) throws SocketException {
+        if (name != null && !name.isBlank()) {
+            final var networkInterface = NetworkInterface.getByName(name);
+            if (networkInterface == null) {
+                throw new IllegalArgumentException("No network interface '" + name + "'");
+            }
+            return networkInterface;
+        }
+        return NetworkInterface.networkInterfaces()
+                .filter(it -> {
+                    try {
+                        return it.isUp() && it.supportsMulticast() && !it.isVirtual();
+                    } catch (final SocketException e) {
+                        return false;
+                    }
+                })
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No multicast network interface available, set fusion.mcp.backplane.networkInterface"));
+    }
+
+    interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private record Entry(SessionState state, long lastSeen) {
+    }
+
+    private record NodeSequence(long value, long lastSeen) {
+    }
+}
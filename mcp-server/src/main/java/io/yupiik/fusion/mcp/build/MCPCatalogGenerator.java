@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.build;
+
+import io.yupiik.fusion.framework.api.ConfiguringContainer;
+import io.yupiik.fusion.json.JsonMapper;
+import io.yupiik.fusion.jsonrpc.JsonRpcRegistry;
+import io.yupiik.fusion.jsonrpc.impl.JsonRpcMethod;
+import io.yupiik.fusion.mcp.model.fusion.MCPCatalog;
+import io.yupiik.fusion.mcp.service.OpenRpcService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+
+// computes the MCP tools/prompts catalog at build time (META-INF/fusion/mcp/catalog.json)
+// so the server does not parse and convert the OpenRPC document at startup.
+// it must run after compilation (fusion-processor generated openrpc.json) with the application classpath,
+// usage: java -cp <app classpath> io.yupiik.fusion.mcp.build.MCPCatalogGenerator <classes output directory>
+public final class MCPCatalogGenerator {
+    private MCPCatalogGenerator() {
+        // no-op
+    }
+
+    public static void main(final String... args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: MCPCatalogGenerator <classes output directory>");
+        }
+
+        System.setProperty("fusion.http-server.start", "false"); // only need the beans, not the server
+        try (final var container = ConfiguringContainer.of().start();
+             final var jsons = container.lookup(JsonMapper.class);
+             final var registry = container.lookup(JsonRpcRegistry.class);
+             final var openRpcService = container.lookup(OpenRpcService.class)) {
+            final var service = openRpcService.instance();
+            final var computed = service.toCatalog(
+                    service.load(),
+                    methodsOfType(registry.instance(), "tool"),
+                    methodsOfType(registry.instance(), "prompt"));
+            final var catalog = new MCPCatalog(computed.tools(), computed.prompts(), service.openRpcHash());
+
+            final var output = Path.of(args[0]).resolve("META-INF/fusion/mcp/catalog.json");
+            Files.createDirectories(output.getParent());
+            Files.writeString(output, jsons.instance().toString(catalog), UTF_8);
+            Logger.getLogger(MCPCatalogGenerator.class.getName()).info(() -> "Generated '" + output + "' " +
+                    "(" + catalog.tools().size() + " tools, " + catalog.prompts().size() + " prompts)");
+        }
+    }
+
+    private static Map<String, JsonRpcMethod> methodsOfType(final JsonRpcRegistry registry, final String type) {
+        return registry.methods().values().stream()
+                .filter(it -> type.equals(it.metadata().getOrDefault("mcp.type", "")))
+                .collect(toMap(JsonRpcMethod::name, identity()));
+    }
+}
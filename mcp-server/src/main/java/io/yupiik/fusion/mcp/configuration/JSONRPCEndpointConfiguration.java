@@ -20,8 +20,10 @@ import io.yupiik.fusion.framework.api.scope.DefaultScoped;
 
 @DefaultScoped
 public class JSONRPCEndpointConfiguration implements ConfigurationSource {
+    // /mcp is served by MCPHttpTransport (session handling) which delegates to the JSON-RPC handler,
+    // keep the raw JSON-RPC endpoint (no MCP session) out of its way, it rejects MCP methods (see MCPHttpTransport#isTransportRequest)
     @Override
     public String get(final String key) {
-        return "fusion.jsonrpc.binding".equals(key) ? "/mcp" : null;
+        return "fusion.jsonrpc.binding".equals(key) ? "/mcp/jsonrpc" : null;
     }
 }
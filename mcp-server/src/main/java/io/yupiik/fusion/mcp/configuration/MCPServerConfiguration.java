@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.configuration;
+
+import io.yupiik.fusion.framework.build.api.configuration.Property;
+import io.yupiik.fusion.framework.build.api.configuration.RootConfiguration;
+import io.yupiik.fusion.mcp.protocol.SseBus;
+
+@RootConfiguration("fusion.mcp")
+public record MCPServerConfiguration(
+        @Property(documentation = "Server to client SSE channel configuration.") SseConfiguration sse,
+        @Property(documentation = "MCP session (`Mcp-Session-Id` header) configuration.") SessionConfiguration session,
+        @Property(documentation = "How sessions and events are shared between nodes.") BackplaneConfiguration backplane,
+        @Property(documentation = "Tools configuration.") ToolsConfiguration tools,
+        @Property(documentation = "Tools, prompts and resources lists configuration.") CatalogConfiguration catalog,
+        @Property(documentation = "Tool calls admission control, limits can be set per tool with `mcp.concurrency.<key>` `@BeanMetadata` and overridden with `fusion.mcp.concurrency.tools.<tool>.<key>` entries (`limit`, `queueSize`, `queueTimeout`, `targetLatency`).") ConcurrencyConfiguration concurrency,
+        @Property(documentation = "Resources configuration.") ResourcesConfiguration resources,
+        @Property(documentation = "`completion/complete` configuration.") CompletionConfiguration completion
+) {
+    public static final MCPServerConfiguration DEFAULT = new MCPServerConfiguration(
+            SseConfiguration.DEFAULT, SessionConfiguration.DEFAULT, BackplaneConfiguration.DEFAULT, ToolsConfiguration.DEFAULT,
+            CatalogConfiguration.DEFAULT, ConcurrencyConfiguration.DEFAULT, ResourcesConfiguration.DEFAULT, CompletionConfiguration.DEFAULT);
+
+    public record CompletionConfiguration(
+            @Property(documentation = "How long (in milliseconds) dynamic completion results are cached per prefix and context, a negative or zero value disables the cache.", defaultValue = "30_000L")
+            long cacheTtl,
+            @Property(documentation = "Maximum number of cached dynamic completion results per completion provider.", defaultValue = "10_000")
+            int cacheSize
+    ) {
+        public static final CompletionConfiguration DEFAULT = new CompletionConfiguration(30_000L, 10_000);
+    }
+
+    public record ResourcesConfiguration(
+            @Property(documentation = "How long (in milliseconds) resource changes are accumulated before `notifications/resources/updated` are sent to subscribers, a burst of changes of a resource sends a single notification.", defaultValue = "250L")
+            long updateDebounce
+    ) {
+        public static final ResourcesConfiguration DEFAULT = new ResourcesConfiguration(250L);
+    }
+
+    public record ConcurrencyConfiguration(
+            @Property(documentation = "Maximum number of tool calls executed concurrently on the node, a negative or zero value disables the global limit.", defaultValue = "0")
+            int globalLimit,
+            @Property(documentation = "Default maximum number of concurrent calls of a single tool, a negative or zero value disables the limit.", defaultValue = "0")
+            int toolLimit,
+            @Property(documentation = "How many calls can wait for a slot when a limit is reached before being rejected.", defaultValue = "64")
+            int queueSize,
+            @Property(documentation = "How long (in milliseconds) a call can wait for a slot before being rejected.", defaultValue = "1_000L")
+            long queueTimeout,
+            @Property(documentation = "If positive, limits become adaptive (AIMD): they decrease when a call is slower than this latency (in milliseconds) and slowly increase up to the configured limit otherwise.", defaultValue = "0L")
+            long targetLatency
+    ) {
+        public static final ConcurrencyConfiguration DEFAULT = new ConcurrencyConfiguration(0, 0, 64, 1_000L, 0L);
+    }
+
+    public record CatalogConfiguration(
+            @Property(documentation = "Maximum number of items per `*/list` page, a negative or zero value disables pagination.", defaultValue = "100")
+            int pageSize
+    ) {
+        public static final CatalogConfiguration DEFAULT = new CatalogConfiguration(100);
+    }
+
+    public record ToolsConfiguration(
+            @Property(documentation = "Should structured tool results also be sent as a text content (backward compatibility), can be disabled per tool with `@MCPStructuredOnly`.", defaultValue = "true")
+            boolean structuredContentText,
+            @Property(documentation = "Should `tools/call` arguments be validated against the tool input schema before the tool is invoked.", defaultValue = "true")
+            boolean validateArguments,
+            @Property(documentation = "Where tools are executed by default, `caller` (the HTTP request thread) or `virtual` (a virtual thread per call), can be forced per tool with `@MCPVirtualThread`. Any other value fails at startup.", defaultValue = "\"caller\"")
+            String executor,
+            @Property(documentation = "Minimum interval (in milliseconds) between two `notifications/progress` of a tool call, intermediate reports are coalesced and only the latest one is sent.", defaultValue = "100L")
+            long progressInterval
+    ) {
+        public static final ToolsConfiguration DEFAULT = new ToolsConfiguration(true, true, "caller", 100L);
+    }
+
+    public record BackplaneConfiguration(
+            @Property(documentation = "Name of the backplane implementation to use, `memory` (single node) and `multicast` (UDP multicast) are provided.", defaultValue = "\"memory\"")
+            String type,
+            @Property(documentation = "For `multicast` backplane, the multicast group address.", defaultValue = "\"239.255.77.77\"")
+            String group,
+            @Property(documentation = "For `multicast` backplane, the UDP port.", defaultValue = "45_677")
+            int port,
+            @Property(documentation = "For `multicast` backplane, the network interface name to use, if empty the first multicast capable one is used.", defaultValue = "\"\"")
+            String networkInterface,
+            @Property(documentation = "For `multicast` backplane, the datagrams time to live (`1` means local network only).", defaultValue = "1")
+            int timeToLive,
+            @Property(documentation = "For `multicast` backplane, the secret shared by all the nodes to sign (HMAC-SHA256) their messages, unsigned or badly signed datagrams are ignored. It is required to start the `multicast` backplane.", defaultValue = "\"\"")
+            String secret
+    ) {
+        public static final BackplaneConfiguration DEFAULT = new BackplaneConfiguration("memory", "239.255.77.77", 45_677, "", 1, "");
+    }
+
+    public record SessionConfiguration(
+            @Property(documentation = "How long (in milliseconds) a session without any request nor connected SSE stream is kept.", defaultValue = "1_800_000L")
+            long idleTimeout,
+            @Property(documentation = "Resolution (in milliseconds) of the idle session eviction timer.", defaultValue = "1_000L")
+            long evictionTick
+    ) {
+        public static final SessionConfiguration DEFAULT = new SessionConfiguration(1_800_000L, 1_000L);
+    }
+
+    public record SseConfiguration(
+            @Property(documentation = "Maximum number of frames queued per SSE channel (rounded to the next power of two).", defaultValue = "1024")
+            int capacity,
+            @Property(documentation = "What to do when the queue of a (slow) client is full.", defaultValue = "io.yupiik.fusion.mcp.protocol.SseBus.OverflowPolicy.DROP_OLDEST")
+            SseBus.OverflowPolicy overflowPolicy,
+            @Property(documentation = "For `BLOCK` overflow policy, how long (in milliseconds) a producer can wait for room before the frame is dropped.", defaultValue = "1_000L")
+            long blockTimeout,
+            @Property(documentation = "Initial size of the buffer a SSE frame is encoded into, it doubles for bigger frames. The buffer is kept as long as the frame (replay window) so it must stay close to the usual notification size.", defaultValue = "1024")
+            int bufferSize,
+            @Property(documentation = "How many sent events are kept per session to be replayed when a client reconnects with a `Last-Event-ID` header, `0` disables resumability.", defaultValue = "256")
+            int replaySize,
+            @Property(documentation = "How long (in milliseconds) a sent event is kept for replay.", defaultValue = "300_000L")
+            long replayMaxAge
+    ) {
+        public static final SseConfiguration DEFAULT = new SseConfiguration(1024, SseBus.OverflowPolicy.DROP_OLDEST, 1_000L, 1024, 256, 300_000L);
+    }
+}
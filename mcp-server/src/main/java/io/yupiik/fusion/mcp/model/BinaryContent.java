@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.model;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+// binary content (image, audio or embedded resource blob) base64 encoded from its source while the MCP transport
+// writes the response so the encoded value is never held on heap,
+// it is not a JSON model: other serializers reject it instead of writing an incomplete content
+public record BinaryContent(
+        Content content, // data (or embedded resource blob) is the encoded source
+        Object source // ByteBuffer, Path (memory mapped) or InputStream (read and closed)
+) {
+    public BinaryContent {
+        if (!(source instanceof ByteBuffer || source instanceof Path || source instanceof InputStream)) {
+            throw new IllegalArgumentException("Unsupported binary source: " + source);
+        }
+    }
+
+    public static BinaryContent image(final String mimeType, final ByteBuffer content) {
+        return new BinaryContent(new Content(null, null, Content.Type.image, null, null, mimeType, null), content);
+    }
+
+    public static BinaryContent image(final String mimeType, final Path content) {
+        return new BinaryContent(new Content(null, null, Content.Type.image, null, null, mimeType, null), content);
+    }
+
+    public static BinaryContent image(final String mimeType, final InputStream content) {
+        return new BinaryContent(new Content(null, null, Content.Type.image, null, null, mimeType, null), content);
+    }
+
+    public static BinaryContent audio(final String mimeType, final ByteBuffer content) {
+        return new BinaryContent(new Content(null, null, Content.Type.audio, null, null, mimeType, null), content);
+    }
+
+    public static BinaryContent audio(final String mimeType, final Path content) {
+        return new BinaryContent(new Content(null, null, Content.Type.audio, null, null, mimeType, null), content);
+    }
+
+    public static BinaryContent audio(final String mimeType, final InputStream content) {
+        return new BinaryContent(new Content(null, null, Content.Type.audio, null, null, mimeType, null), content);
+    }
+
+    public static BinaryContent resource(final BinaryResource resource) {
+        return new BinaryContent(Content.resource(resource.resource()), resource.source());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.model;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+// resource blob base64 encoded from its source while the MCP transport writes the response (see BinaryContent)
+public record BinaryResource(
+        Resource resource, // blob is the encoded source
+        Object source // ByteBuffer, Path (memory mapped) or InputStream (read and closed)
+) {
+    public BinaryResource {
+        if (!(source instanceof ByteBuffer || source instanceof Path || source instanceof InputStream)) {
+            throw new IllegalArgumentException("Unsupported binary source: " + source);
+        }
+    }
+
+    public static BinaryResource blob(final Metadata metadata, final String uri, final String mimeType, final ByteBuffer content) {
+        return new BinaryResource(new Resource(metadata, uri, mimeType, null, null), content);
+    }
+
+    public static BinaryResource blob(final Metadata metadata, final String uri, final String mimeType, final Path content) {
+        return new BinaryResource(new Resource(metadata, uri, mimeType, null, null), content);
+    }
+
+    public static BinaryResource blob(final Metadata metadata, final String uri, final String mimeType, final InputStream content) {
+        return new BinaryResource(new Resource(metadata, uri, mimeType, null, null), content);
+    }
+}
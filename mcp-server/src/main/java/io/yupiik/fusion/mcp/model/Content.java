@@ -20,6 +20,7 @@ import io.yupiik.fusion.framework.build.api.json.JsonProperty;
 
 import java.util.Base64;
 
+// binary contents encoded while the response is written (ByteBuffer, Path, InputStream) are BinaryContent
 @JsonModel
 public record Content(
         @JsonProperty("_meta") Metadata metadata,
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.model;
+
+import java.util.concurrent.Flow;
+
+// tool result produced lazily: the MCP HTTP transport streams each item to the response body as it is published,
+// it is not a JSON model so other serializers reject it instead of writing an empty content
+public final class ContentStream {
+    private final Flow.Publisher<?> publisher;
+
+    private ContentStream(final Flow.Publisher<?> publisher) {
+        this.publisher = publisher;
+    }
+
+    // items can be Content, BinaryContent, CharSequence (text content) or any object serialized as a JSON text content
+    public Flow.Publisher<?> publisher() {
+        return publisher;
+    }
+
+    public static ContentStream of(final Flow.Publisher<?> publisher) {
+        return new ContentStream(publisher);
+    }
+}
@@ -35,37 +35,45 @@ public record JsonSchema(
         JsonSchema items,
         @JsonProperty("enum") List<String> enumeration,
         List<String> required,
-        @JsonProperty("default") Object defaultValue) {
+        @JsonProperty("default") Object defaultValue,
+        @JsonProperty("$ref") String ref, // only "#/$defs/<name>" for recursive types
+        @JsonProperty("$defs") Map<String, JsonSchema> definitions) {
     // generic primitive
     public JsonSchema(final String type, final Boolean nullable, final String description) {
-        this(type, nullable, null, description, null, null, null, null, null, null, null, null);
+        this(type, nullable, null, description, null, null, null, null, null, null, null, null, null, null);
     }
 
     // string
     public JsonSchema(final Boolean nullable, final String description,
                       final String format, final String pattern) {
-        this("string", nullable, null, description, format, pattern, null, null, null, null, null, null);
+        this("string", nullable, null, description, format, pattern, null, null, null, null, null, null, null, null);
     }
 
     // enumeration
     public JsonSchema(final Boolean nullable, final String description,
                       final String format, final String pattern, final List<String> enumeration) {
-        this("string", nullable, null, description, format, pattern, null, null, null, enumeration, null, null);
+        this("string", nullable, null, description, format, pattern, null, null, null, enumeration, null, null, null, null);
     }
 
     // object
     public JsonSchema(final Boolean nullable, final String description,
                       final Map<String, JsonSchema> properties, final Object additionalProperties,
                       final List<String> required) {
-        this("object", nullable, null, description, null, null, properties, additionalProperties, null, null, required, null);
+        this("object", nullable, null, description, null, null, properties, additionalProperties, null, null, required, null, null, null);
     }
 
     public JsonSchema(final Boolean nullable, final String description, final Map<String, JsonSchema> properties, final List<String> required) {
-        this("object", nullable, null, description, null, null, properties, null, null, null, required, null);
+        this("object", nullable, null, description, null, null, properties, null, null, null, required, null, null, null);
     }
 
     // array
     public JsonSchema(final Boolean nullable, final String description, final JsonSchema items) {
-        this("array", nullable, null, description, null, null, null, null, items, null, null, null);
+        this("array", nullable, null, description, null, null, null, null, items, null, null, null, null, null);
+    }
+
+    public JsonSchema withDefinitions(final Map<String, JsonSchema> definitions) {
+        return new JsonSchema(
+                type, nullable, title, description, format, pattern, properties, additionalProperties, items, enumeration,
+                required, defaultValue, ref, definitions);
     }
 }
@@ -22,6 +22,7 @@ import java.util.List;
 
 @JsonModel
 public record ListPromptsResponse(
+        @JsonProperty("_meta") Metadata metadata,
         List<Prompt> prompts,
         String nextCursor
 ) {
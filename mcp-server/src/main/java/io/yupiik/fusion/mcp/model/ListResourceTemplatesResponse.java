@@ -22,7 +22,7 @@ import java.util.List;
 
 @JsonModel
 public record ListResourceTemplatesResponse(
-        List<ResourceTemplate> resources,
+        List<ResourceTemplate> resourceTemplates,
         String nextCursor
 ) {
     @JsonModel
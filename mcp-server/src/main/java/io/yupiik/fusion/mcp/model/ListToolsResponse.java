@@ -22,6 +22,7 @@ import java.util.List;
 
 @JsonModel
 public record ListToolsResponse(
+        @JsonProperty("_meta") Metadata metadata,
         List<Tool> tools,
         String nextCursor
 ) {
@@ -20,12 +20,13 @@ import io.yupiik.fusion.framework.build.api.json.JsonProperty;
 
 import java.util.Base64;
 
+// blobs encoded while the response is written (ByteBuffer, Path, InputStream) are BinaryResource
 @JsonModel
 public record Resource(
         @JsonProperty("_meta") Metadata metadata,
         String uri, String mimeType,
         String text,
-        String blob // base64, required
+        String blob // base64
 ) {
     public static Resource text(final Metadata metadata, final String uri, final String mimeType, final String text) {
         return new Resource(metadata, uri, mimeType, text, null);
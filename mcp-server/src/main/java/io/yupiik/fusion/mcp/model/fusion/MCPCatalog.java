@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.model.fusion;
+
+import io.yupiik.fusion.framework.build.api.json.JsonModel;
+import io.yupiik.fusion.mcp.model.ListPromptsResponse;
+import io.yupiik.fusion.mcp.model.ListToolsResponse;
+
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
+
+// build time computed catalog (META-INF/fusion/mcp/catalog.json), see io.yupiik.fusion.mcp.build.MCPCatalogGenerator,
+// openRpcHash identifies the openrpc.json it was computed from so a stale catalog (changed schemas) is not served
+@JsonModel
+public record MCPCatalog(
+        List<ListToolsResponse.Tool> tools,
+        List<ListPromptsResponse.Prompt> prompts,
+        String openRpcHash
+) {
+    public boolean covers(final Set<String> tools, final Set<String> prompts) {
+        return this.tools.stream().map(ListToolsResponse.Tool::name).collect(toSet()).containsAll(tools) &&
+                this.prompts.stream().map(ListPromptsResponse.Prompt::name).collect(toSet()).containsAll(prompts);
+    }
+
+    public MCPCatalog filter(final Set<String> tools, final Set<String> prompts) {
+        return new MCPCatalog(
+                this.tools.stream().filter(it -> tools.contains(it.name())).toList(),
+                this.prompts.stream().filter(it -> prompts.contains(it.name())).toList(),
+                openRpcHash);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.file.StandardOpenOption.READ;
+
+// base64 encodes a binary source chunk per chunk, never holding the whole encoded value
+class Base64Source implements Flow.Publisher<ByteBuffer> {
+    private static final int CHUNK = 3 * 16 * 1024; // multiple of 3 so there is no padding between chunks
+
+    private final Object source;
+
+    Base64Source(final Object source) {
+        this.source = source;
+    }
+
+    void writeTo(final Writer out) throws IOException {
+        try (final var chunks = open()) {
+            ByteBuffer next;
+            while ((next = chunks.next()) != null) {
+                final var encoded = Base64.getEncoder().encode(next);
+                out.write(new String(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining(), ISO_8859_1));
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        final Chunks chunks;
+        try {
+            chunks = open();
+        } catch (final IOException | RuntimeException e) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) {
+                    // no-op
+                }
+
+                @Override
+                public void cancel() {
+                    // no-op
+                }
+            });
+            subscriber.onError(e);
+            return;
+        }
+        subscriber.onSubscribe(new Subscription(subscriber, chunks));
+    }
+
+    private Chunks open() throws IOException {
+        if (source instanceof ByteBuffer buffer) {
+            return new BufferChunks(buffer.duplicate());
+        }
+        if (source instanceof Path path) {
+            try (final var channel = FileChannel.open(path, READ)) {
+                return new BufferChunks(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+        if (source instanceof InputStream stream) {
+            return new StreamChunks(stream);
+        }
+        throw new IllegalArgumentException("Unsupported binary source: " + source);
+    }
+
+    private interface Chunks extends AutoCloseable {
+        ByteBuffer next() throws IOException; // null at the end
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private record BufferChunks(ByteBuffer buffer) implements Chunks {
+        @Override
+        public ByteBuffer next() {
+            if (!buffer.hasRemaining()) {
+                return null;
+            }
+            final var chunk = buffer.slice(buffer.position(), Math.min(CHUNK, buffer.remaining()));
+            buffer.position(buffer.position() + chunk.remaining());
+            return chunk;
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+
+    private static class StreamChunks implements Chunks {
+        private final byte[] chunk = new byte[CHUNK];
+        private final InputStream stream;
+
+        private StreamChunks(final InputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public ByteBuffer next() throws IOException {
+            final int read = stream.readNBytes(chunk, 0, chunk.length);
+            return read == 0 ? null : ByteBuffer.wrap(chunk, 0, read);
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+
+    private static class Subscription implements Flow.Subscription {
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final Chunks chunks;
+        private volatile boolean done;
+
+        private Subscription(final Flow.Subscriber<? super ByteBuffer> subscriber, final Chunks chunks) {
+            this.subscriber = subscriber;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                terminate(new IllegalArgumentException("Invalid demand: " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!done && demand.get() > 0) {
+                    final ByteBuffer next;
+                    try {
+                        next = chunks.next();
+                    } catch (final IOException e) {
+                        terminate(e);
+                        return;
+                    }
+                    if (next == null) {
+                        terminate(null);
+                        return;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(Base64.getEncoder().encode(next));
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        @Override
+        public void cancel() {
+            if (!done) {
+                done = true;
+                close();
+            }
+        }
+
+        private void terminate(final Throwable error) {
+            if (done) {
+                return;
+            }
+            done = true;
+            close();
+            if (error == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(error);
+            }
+        }
+
+        private void close() {
+            try {
+                chunks.close();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.jsonrpc.JsonRpcException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// immutable list sorted by name with pre-serialized items so a page is located in O(log n) and written in O(page),
+// cursors are the (opaque) last name of the previous page so they stay valid when items are added or removed
+class Catalog<T> {
+    private final String[] names;
+    private final Object[] items;
+    private final String[] json;
+    private final int pageSize;
+    private final String hash;
+
+    Catalog(final List<T> items, final Function<T, String> name, final Function<T, String> serializer, final int pageSize) {
+        final var sorted = items.stream().sorted(Comparator.comparing(name)).toList();
+        this.names = sorted.stream().map(name).toArray(String[]::new);
+        this.items = sorted.toArray();
+        this.json = sorted.stream().map(serializer).toArray(String[]::new);
+        this.pageSize = pageSize <= 0 ? Integer.MAX_VALUE : pageSize;
+        this.hash = hash(json);
+    }
+
+    String hash() {
+        return hash;
+    }
+
+    int size() {
+        return items.length;
+    }
+
+    Page<T> page(final String cursor) {
+        final int from = cursor == null ? 0 : indexAfter(decode(cursor));
+        final int to = (int) Math.min(items.length, (long) from + pageSize);
+        return new Page<>(new Slice<>(this, from, to), to < items.length ? encode(names[to - 1]) : null);
+    }
+
+    private int indexAfter(final String name) {
+        final int idx = Arrays.binarySearch(names, name);
+        return idx >= 0 ? idx + 1 : -idx - 1;
+    }
+
+    private static String encode(final String name) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(name.getBytes(UTF_8));
+    }
+
+    private static String decode(final String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+        } catch (final IllegalArgumentException iae) {
+            throw new JsonRpcException(-32602, "Invalid cursor: '" + cursor + "'");
+        }
+    }
+
+    private static String hash(final String[] json) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            for (final var item : json) {
+                digest.update(item.getBytes(UTF_8));
+                digest.update((byte) 0);
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Page<T>(Slice<T> items, String nextCursor) {
+    }
+
+    // a view on the catalog, the response writer uses the pre-serialized items
+    static class Slice<T> extends AbstractList<T> implements RandomAccess {
+        private final Catalog<T> catalog;
+        private final int from;
+        private final int to;
+
+        private Slice(final Catalog<T> catalog, final int from, final int to) {
+            this.catalog = catalog;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(final int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (T) catalog.items[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        void writeTo(final Writer out) throws IOException {
+            out.write('[');
+            for (int i = from; i < to; i++) {
+                if (i != from) {
+                    out.write(',');
+                }
+                out.write(catalog.json[i]);
+            }
+            out.write(']');
+        }
+    }
+}
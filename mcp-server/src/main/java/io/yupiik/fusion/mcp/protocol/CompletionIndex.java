@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.mcp.api.MCPCompletionProvider;
+import io.yupiik.fusion.mcp.model.CompleteResult;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+// completion sources by (ref type, ref, argument): static values are sorted once so a prefix is two binary searches
+// (O(log n + k)), dynamic ones are cached per prefix and context for a while (least recently used entries are evicted first)
+class CompletionIndex {
+    static final int MAX_VALUES = 100; // specification limit
+    private static final CompleteResult.Completion EMPTY = new CompleteResult.Completion(false, 0, List.of());
+
+    private final Map<String, Completer> completers;
+
+    CompletionIndex(final List<MCPCompletionProvider> providers, final long cacheTtl, final int cacheSize) {
+        final var index = new HashMap<String, Completer>();
+        for (final var provider : providers) {
+            final var values = provider.values();
+            final var completer = values == null ?
+                    new DynamicCompleter(provider, cacheTtl, cacheSize) :
+                    new StaticCompleter(values.stream().distinct().sorted().toArray(String[]::new));
+            if (index.putIfAbsent(key(provider.refType(), provider.ref(), provider.argument()), completer) != null) {
+                Logger.getLogger(getClass().getName()).warning(() -> "Completion of '" + provider.argument() + "' for '" + provider.ref() + "' is provided twice, ignoring " + provider);
+            }
+        }
+        this.completers = index;
+    }
+
+    boolean isEmpty() {
+        return completers.isEmpty();
+    }
+
+    CompletionStage<CompleteResult.Completion> complete(final String refType, final String ref, final String argument,
+                                                        final String prefix, final Map<String, String> arguments) {
+        final var completer = completers.get(key(refType, ref, argument));
+        if (completer == null) {
+            return completedFuture(EMPTY);
+        }
+        return completer.complete(prefix == null ? "" : prefix, arguments == null ? Map.of() : arguments);
+    }
+
+    private static String key(final String refType, final String ref, final String argument) {
+        return refType + '\u0000' + ref + '\u0000' + argument;
+    }
+
+    private interface Completer {
+        CompletionStage<CompleteResult.Completion> complete(String prefix, Map<String, String> arguments);
+    }
+
+    private record StaticCompleter(String[] values) implements Completer {
+        @Override
+        public CompletionStage<CompleteResult.Completion> complete(final String prefix, final Map<String, String> arguments) {
+            final int from = lowerBound(prefix);
+            // all strings starting with prefix are lower than prefix + the highest char
+            final int to = lowerBound(prefix + Character.MAX_VALUE);
+            final int total = to - from;
+            return completedFuture(new CompleteResult.Completion(
+                    total > MAX_VALUES, total, List.of(Arrays.copyOfRange(values, from, Math.min(to, from + MAX_VALUES)))));
+        }
+
+        private int lowerBound(final String value) {
+            final int index = Arrays.binarySearch(values, value);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    private static final class DynamicCompleter implements Completer {
+        private final MCPCompletionProvider provider;
+        private final long ttl;
+        private final Lock lock = new ReentrantLock();
+        private final Map<CacheKey, CacheEntry> cache; // access ordered, guarded by lock
+
+        private DynamicCompleter(final MCPCompletionProvider provider, final long ttl, final int maxSize) {
+            this.provider = provider;
+            this.ttl = ttl * 1_000_000;
+            this.cache = new LinkedHashMap<>(16, .75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<CacheKey, CacheEntry> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        @Override
+        public CompletionStage<CompleteResult.Completion> complete(final String prefix, final Map<String, String> arguments) {
+            if (ttl <= 0) {
+                return provider.complete(prefix, arguments).thenApply(DynamicCompleter::toCompletion);
+            }
+
+            final var key = new CacheKey(prefix, arguments);
+            final long now = System.nanoTime();
+            lock.lock();
+            try {
+                final var cached = cache.get(key); // marks it as recently used
+                if (cached != null && now - cached.createdAt() < ttl) {
+                    return cached.values();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // the stage is cached so concurrent identical lookups share the same call
+            final var values = provider.complete(prefix, arguments).thenApply(DynamicCompleter::toCompletion);
+            final var entry = new CacheEntry(now, values);
+            lock.lock();
+            try {
+                cache.put(key, entry); // evicts the least recently used entry when full
+            } finally {
+                lock.unlock();
+            }
+            values.whenComplete((ok, ko) -> {
+                if (ko != null) {
+                    lock.lock();
+                    try {
+                        cache.remove(key, entry);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+            return values;
+        }
+
+        private static CompleteResult.Completion toCompletion(final List<String> values) {
+            if (values == null || values.isEmpty()) {
+                return EMPTY;
+            }
+            return new CompleteResult.Completion(values.size() > MAX_VALUES, values.size(), values.size() > MAX_VALUES ? values.subList(0, MAX_VALUES) : values);
+        }
+    }
+
+    private record CacheKey(String prefix, Map<String, String> arguments) {
+    }
+
+    private record CacheEntry(long createdAt, CompletionStage<CompleteResult.Completion> values) {
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.jsonrpc.JsonRpcException;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// asynchronous bulkhead: calls over the limit wait in a bounded queue (without blocking any thread) or are rejected,
+// with a target latency the limit is adaptive (additive increase when saturated, multiplicative decrease when slow),
+// the decrease happens at most once per generation of calls: calls started before the last decrease don't decrease it again
+class ConcurrencyLimiter {
+    private final String name;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private int maxLimit;
+    private int queueSize;
+    private long queueTimeout;
+    private long targetLatency;
+    private double limit;
+    private int inFlight;
+    private long averageLatency; // nanoseconds, exponential moving average
+    private long lastDecrease = System.nanoTime() - 1;
+
+    // timer only schedules the queue timeouts, it should remove cancelled tasks (the timeout is cancelled when the slot is granted)
+    ConcurrencyLimiter(final String name, final int limit, final int queueSize, final long queueTimeout, final long targetLatency,
+                       final Executor executor, final ScheduledExecutorService timer) {
+        this.name = name;
+        this.executor = executor;
+        this.timer = timer;
+        configure(limit, queueSize, queueTimeout, targetLatency);
+    }
+
+    // on reload the limiter is kept (with its in-flight calls and queue) and only its settings change
+    synchronized void configure(final int limit, final int queueSize, final long queueTimeout, final long targetLatency) {
+        if (limit != maxLimit) {
+            this.limit = limit;
+        }
+        this.maxLimit = limit;
+        this.queueSize = Math.max(0, queueSize);
+        this.queueTimeout = queueTimeout;
+        this.targetLatency = MILLISECONDS.toNanos(targetLatency);
+    }
+
+    <T> CompletionStage<T> execute(final Supplier<CompletionStage<T>> task) {
+        return execute(task, null);
+    }
+
+    // a cancelled call leaves the queue right away, once running it keeps its slot until the task really completes
+    <T> CompletionStage<T> execute(final Supplier<CompletionStage<T>> task, final MCPCancellation cancellation) {
+        final Waiter waiter;
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                waiter = null;
+            } else if (queue.size() < queueSize) {
+                waiter = new Waiter();
+                queue.add(waiter);
+                // under the lock so release() can't hand the slot over before the timeout exists
+                waiter.timeout = timer.schedule(() -> {
+                    final boolean expired;
+                    synchronized (this) {
+                        expired = queue.remove(waiter);
+                    }
+                    if (expired) {
+                        waiter.future.completeExceptionally(rejected());
+                    }
+                }, queueTimeout, MILLISECONDS);
+            } else {
+                throw rejected();
+            }
+        }
+        if (waiter == null) {
+            return run(task);
+        }
+
+        if (cancellation != null) {
+            cancellation.onCancel(() -> {
+                final boolean removed;
+                synchronized (this) {
+                    removed = queue.remove(waiter);
+                }
+                if (removed) {
+                    waiter.timeout.cancel(false);
+                    waiter.future.completeExceptionally(cancellation.cancelledError());
+                }
+            });
+        }
+        return waiter.future.thenCompose(ignored -> run(task)); // the slot is handed over by release()
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private <T> CompletionStage<T> run(final Supplier<CompletionStage<T>> task) {
+        final long start = System.nanoTime();
+        final CompletionStage<T> stage;
+        try {
+            stage = task.get();
+        } catch (final RuntimeException | Error e) {
+            release(start);
+            throw e;
+        }
+        return stage.whenComplete((result, error) -> release(start));
+    }
+
+    private void release(final long start) {
+        final long end = System.nanoTime();
+        final long latency = end - start;
+        final Waiter next;
+        synchronized (this) {
+            averageLatency = averageLatency == 0 ? latency : (averageLatency * 7 + latency) / 8;
+            if (targetLatency > 0) {
+                if (latency > targetLatency) {
+                    if (start - lastDecrease > 0) { // a burst of slow calls completing together only decreases the limit once
+                        limit = Math.max(1, limit * .9);
+                        lastDecrease = end;
+                    }
+                } else if (inFlight >= (int) limit) { // only grow when the limit is actually the bottleneck
+                    limit = Math.min(maxLimit, limit + 1. / limit);
+                }
+            }
+            next = inFlight <= (int) limit ? queue.poll() : null;
+            if (next == null) {
+                inFlight--;
+            }
+        }
+        if (next != null) { // not inline: a chain of queued synchronous calls would nest in the releasing stack
+            next.timeout.cancel(false);
+            next.future.completeAsync(() -> null, executor);
+        }
+    }
+
+    private JsonRpcException rejected() {
+        final long retryAfter;
+        synchronized (this) {
+            retryAfter = averageLatency == 0 ? queueTimeout : Math.max(1, NANOSECONDS.toMillis(averageLatency * (queue.size() + 1) / Math.max(1, (int) limit)));
+        }
+        return new JsonRpcException(MCPJSONRPCProtocol.OVERLOADED, "Too many concurrent calls of '" + name + "'", Map.of("retryAfter", retryAfter), null);
+    }
+
+    private static final class Waiter {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private ScheduledFuture<?> timeout; // set under the limiter lock
+    }
+}
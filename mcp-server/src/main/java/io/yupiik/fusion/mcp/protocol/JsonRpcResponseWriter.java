@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.json.JsonMapper;
+import io.yupiik.fusion.jsonrpc.Response;
+import io.yupiik.fusion.mcp.model.BinaryContent;
+import io.yupiik.fusion.mcp.model.BinaryResource;
+import io.yupiik.fusion.mcp.model.Content;
+import io.yupiik.fusion.mcp.model.ContentStream;
+import io.yupiik.fusion.mcp.model.ListPromptsResponse;
+import io.yupiik.fusion.mcp.model.ListResourceTemplatesResponse;
+import io.yupiik.fusion.mcp.model.ListResourcesResponse;
+import io.yupiik.fusion.mcp.model.ListToolsResponse;
+import io.yupiik.fusion.mcp.model.Metadata;
+import io.yupiik.fusion.mcp.model.Resource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.Flow;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// writes JSON-RPC responses, results needing a custom serialization (single pass, streamed, binary, ...) are handled there
+class JsonRpcResponseWriter {
+    private final JsonMapper jsons;
+    private final SerializedResults serializedResults;
+
+    JsonRpcResponseWriter(final JsonMapper jsons, final SerializedResults serializedResults) {
+        this.jsons = jsons;
+        this.serializedResults = serializedResults;
+    }
+
+    // returns a String when the payload is fully static or a Flow.Publisher<ByteBuffer> when some parts are produced while written
+    Object body(final Object payload) {
+        final var out = new SegmentWriter();
+        try {
+            write(payload, out);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (out.segments.isEmpty()) {
+            return out.toString();
+        }
+        out.flushSegment();
+        return new StreamedBody(out.segments);
+    }
+
+    void write(final Object payload, final Writer out) throws IOException {
+        if (payload instanceof Response response && response.error() == null) {
+            writeResponse(response, out);
+        } else if (payload instanceof Collection<?> batch) {
+            out.write('[');
+            boolean first = true;
+            for (final var item : batch) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                write(item, out);
+            }
+            out.write(']');
+        } else {
+            writeValue(payload, out);
+        }
+    }
+
+    private void writeResponse(final Response response, final Writer out) throws IOException {
+        out.write("{\"jsonrpc\":\"2.0\",\"id\":");
+        writeValue(response.id(), out);
+        out.write(",\"result\":");
+        final var serialized = serializedResults.get(response.result());
+        if (serialized != null) {
+            out.write(serialized);
+        } else if (response.result() instanceof ContentStream stream) {
+            writeStream(stream, out);
+        } else if (response.result() instanceof StructuredToolResult tool) {
+            writeStructuredTool(tool, out);
+        } else if (response.result() instanceof BinaryContent binary) { // tool result
+            out.write("{\"isError\":false,\"content\":[");
+            writeBinaryContent(binary, out);
+            out.write("]}");
+        } else if (response.result() instanceof BinaryResource binary) { // resources/read result
+            out.write("{\"contents\":[");
+            writeBinaryResource(binary.resource(), binary.source(), out);
+            out.write("]}");
+        } else if (response.result() instanceof ListToolsResponse list && list.tools() instanceof Catalog.Slice<?> slice) {
+            writePage(list.metadata(), "tools", slice, list.nextCursor(), out);
+        } else if (response.result() instanceof ListPromptsResponse list && list.prompts() instanceof Catalog.Slice<?> slice) {
+            writePage(list.metadata(), "prompts", slice, list.nextCursor(), out);
+        } else if (response.result() instanceof ListResourcesResponse list && list.resources() instanceof Catalog.Slice<?> slice) {
+            writePage(null, "resources", slice, list.nextCursor(), out);
+        } else if (response.result() instanceof ListResourceTemplatesResponse list && list.resourceTemplates() instanceof Catalog.Slice<?> slice) {
+            writePage(null, "resourceTemplates", slice, list.nextCursor(), out);
+        } else {
+            writeValue(response.result(), out);
+        }
+        out.write('}');
+    }
+
+    private void writePage(final Metadata metadata, final String name, final Catalog.Slice<?> items, final String nextCursor,
+                           final Writer out) throws IOException {
+        out.write('{');
+        if (metadata != null) {
+            out.write("\"_meta\":");
+            writeValue(metadata, out);
+            out.write(',');
+        }
+        out.write('"');
+        out.write(name);
+        out.write("\":");
+        items.writeTo(out);
+        if (nextCursor != null) {
+            out.write(",\"nextCursor\":");
+            writeValue(nextCursor, out);
+        }
+        out.write('}');
+    }
+
+    private void writeStructuredTool(final StructuredToolResult tool, final Writer out) throws IOException {
+        // structuredContent is serialized once and reused (escaped) as text content
+        final var structured = jsons.toString(tool.structuredContent());
+        if (tool.withText()) {
+            out.write("{\"isError\":false,\"content\":[{\"type\":\"text\",\"text\":");
+            writeValue(structured, out);
+            out.write("}],\"structuredContent\":");
+        } else {
+            out.write("{\"isError\":false,\"content\":[],\"structuredContent\":");
+        }
+        out.write(structured);
+        out.write('}');
+    }
+
+    private void writeStream(final ContentStream stream, final Writer out) throws IOException {
+        if (!(out instanceof SegmentWriter segments)) {
+            throw new IllegalStateException("Content streams are only written as a response body");
+        }
+        out.write("{\"isError\":false,\"content\":[");
+        segments.source(new StreamedBody.Source(stream.publisher(), this::encodeStreamedContent));
+        out.write("]}");
+    }
+
+    private void writeBinaryContent(final BinaryContent binary, final Writer out) throws IOException {
+        final var content = binary.content();
+        out.write('{');
+        if (content.metadata() != null) {
+            out.write("\"_meta\":");
+            writeValue(content.metadata(), out);
+            out.write(',');
+        }
+        if (content.annotations() != null) {
+            out.write("\"annotations\":");
+            writeValue(content.annotations(), out);
+            out.write(',');
+        }
+        out.write("\"type\":");
+        writeValue(content.type().name(), out);
+        if (content.mimetype() != null) {
+            out.write(",\"mimetype\":");
+            writeValue(content.mimetype(), out);
+        }
+        if (content.resource() != null) { // embedded resource, the source is its blob
+            out.write(",\"resource\":");
+            writeBinaryResource(content.resource(), binary.source(), out);
+        } else {
+            out.write(",\"data\":");
+            writeBinary(binary.source(), out);
+        }
+        out.write('}');
+    }
+
+    private void writeBinaryResource(final Resource resource, final Object source, final Writer out) throws IOException {
+        out.write('{');
+        if (resource.metadata() != null) {
+            out.write("\"_meta\":");
+            writeValue(resource.metadata(), out);
+            out.write(',');
+        }
+        out.write("\"uri\":");
+        writeValue(resource.uri(), out);
+        if (resource.mimeType() != null) {
+            out.write(",\"mimeType\":");
+            writeValue(resource.mimeType(), out);
+        }
+        out.write(",\"blob\":");
+        writeBinary(source, out);
+        out.write('}');
+    }
+
+    // base64 output needs no JSON escaping so chunks are written as they are encoded
+    private void writeBinary(final Object binary, final Writer out) throws IOException {
+        out.write('"');
+        if (out instanceof SegmentWriter segments) {
+            segments.source(new StreamedBody.Source(new Base64Source(binary), (chunk, first) -> (ByteBuffer) chunk));
+        } else {
+            new Base64Source(binary).writeTo(out);
+        }
+        out.write('"');
+    }
+
+    // streamed items are materialized one by one
+    private ByteBuffer encodeStreamedContent(final Object item, final boolean first) {
+        final var out = new StringWriter();
+        if (!first) {
+            out.write(',');
+        }
+        try {
+            if (item instanceof BinaryContent binary) {
+                writeBinaryContent(binary, out);
+            } else {
+                writeValue(item instanceof Content c ? c : Content.text(
+                        item instanceof CharSequence text ? text.toString() : jsons.toString(item)), out);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ByteBuffer.wrap(out.toString().getBytes(UTF_8));
+    }
+
+    private void writeValue(final Object value, final Writer out) throws IOException {
+        if (value == null) {
+            out.write("null");
+        } else {
+            jsons.write(value, out);
+        }
+    }
+
+    private static class SegmentWriter extends StringWriter {
+        private final Queue<Object> segments = new ArrayDeque<>();
+
+        private void source(final StreamedBody.Source source) {
+            flushSegment();
+            segments.add(source);
+        }
+
+        private void flushSegment() {
+            final var buffer = getBuffer();
+            if (!buffer.isEmpty()) {
+                segments.add(ByteBuffer.wrap(buffer.toString().getBytes(UTF_8)));
+                buffer.setLength(0);
+            }
+        }
+    }
+}
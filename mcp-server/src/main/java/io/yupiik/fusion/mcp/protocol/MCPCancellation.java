@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.http.server.api.Request;
+import io.yupiik.fusion.jsonrpc.JsonRpcException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// cancellation token of an in-flight tools/call, cancelled by a notifications/cancelled for its request id,
+// tools can poll it or register a callback, virtual thread tools are also interrupted
+public class MCPCancellation {
+    private final String requestId;
+    private final List<Runnable> listeners = new ArrayList<>(2);
+    private volatile String reason;
+    private volatile boolean cancelled;
+    private Thread thread;
+
+    MCPCancellation(final String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String requestId() {
+        return requestId;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String reason() {
+        return reason;
+    }
+
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw cancelledError();
+        }
+    }
+
+    // callback is called immediately if already cancelled
+    public void onCancel(final Runnable callback) {
+        synchronized (this) {
+            if (!cancelled) {
+                listeners.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    boolean cancel(final String reason) {
+        final List<Runnable> callbacks;
+        synchronized (this) {
+            if (cancelled) {
+                return false;
+            }
+            this.reason = reason;
+            this.cancelled = true;
+            if (thread != null) {
+                thread.interrupt();
+            }
+            callbacks = List.copyOf(listeners);
+            listeners.clear();
+        }
+        for (final var callback : callbacks) {
+            try {
+                callback.run();
+            } catch (final RuntimeException re) {
+                Logger.getLogger(getClass().getName()).log(Level.WARNING, re, () -> "Cancellation callback failed for request '" + requestId + "'");
+            }
+        }
+        return true;
+    }
+
+    // the returned stage fails as soon as the call is cancelled, even if the tool ignores the token,
+    // the attached stage itself is left untouched so whatever waits for its real completion (bulkhead slots) still does
+    <T> CompletionStage<T> attach(final CompletionStage<T> stage) {
+        final var future = new CompletableFuture<T>();
+        stage.whenComplete((result, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        });
+        onCancel(() -> future.completeExceptionally(cancelledError()));
+        return future;
+    }
+
+    // binds the thread running the tool so it gets interrupted on cancellation
+    void enter() {
+        synchronized (this) {
+            thread = Thread.currentThread();
+        }
+        throwIfCancelled();
+    }
+
+    void exit() {
+        synchronized (this) {
+            thread = null;
+        }
+    }
+
+    JsonRpcException cancelledError() {
+        return new JsonRpcException(MCPJSONRPCProtocol.CANCELLED, reason == null ? "Request cancelled" : "Request cancelled: " + reason);
+    }
+
+    public static class Accessor {
+        private Accessor() {
+            // no-op
+        }
+
+        // only single tools/call requests of a session get a token, batched calls can't be targeted
+        public static Optional<MCPCancellation> find(final Request request) {
+            return Optional.ofNullable(request.attribute(MCPCancellation.class.getName(), MCPCancellation.class));
+        }
+
+        static void bind(final Request request, final MCPCancellation cancellation) {
+            request.setAttribute(MCPCancellation.class.getName(), cancellation);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
+import io.yupiik.fusion.framework.build.api.http.HttpMatcher;
+import io.yupiik.fusion.http.server.api.Request;
+import io.yupiik.fusion.http.server.api.Response;
+import io.yupiik.fusion.json.JsonMapper;
+import io.yupiik.fusion.jsonrpc.JsonRpcHandler;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+// streamable HTTP transport (POST/DELETE /mcp), it handles the MCP session lifecycle around the JSON-RPC handler
+@ApplicationScoped
+public class MCPHttpTransport {
+    public static final String SESSION_HEADER = "mcp-session-id";
+
+    private final JsonRpcHandler handler;
+    private final JsonMapper jsons;
+    private final MCPSessionRegistry sessions;
+    private final JsonRpcResponseWriter writer;
+
+    // for subclassing proxies
+    protected MCPHttpTransport() {
+        handler = null;
+        jsons = null;
+        sessions = null;
+        writer = null;
+    }
+
+    public MCPHttpTransport(final JsonRpcHandler handler, final JsonMapper jsons, final MCPSessionRegistry sessions,
+                            final SerializedResults serializedResults) {
+        this.handler = handler;
+        this.jsons = jsons;
+        this.sessions = sessions;
+        this.writer = new JsonRpcResponseWriter(jsons, serializedResults);
+    }
+
+    @HttpMatcher(methods = "POST", path = "/mcp")
+    public CompletionStage<Response> post(final Request request) {
+        final var sessionId = request.header(SESSION_HEADER);
+        if (sessionId != null) {
+            final var session = sessions.find(sessionId);
+            if (session == null) { // expired or deleted, client must re-initialize
+                return completedFuture(Response.of().status(404).build());
+            }
+            MCPSession.Accessor.bind(request, session);
+        }
+        request.setAttribute(MCPHttpTransport.class.getName(), Boolean.TRUE);
+
+        return request.fullBody().bytes().thenCompose(bytes -> {
+            final Object payload;
+            try {
+                payload = jsons.fromBytes(Object.class, bytes);
+            } catch (final RuntimeException re) {
+                return completedFuture(json(null, new io.yupiik.fusion.jsonrpc.Response(
+                        "2.0", null, null, new io.yupiik.fusion.jsonrpc.Response.ErrorResponse(-32700, re.getMessage(), null))));
+            }
+
+            final boolean initialize = sessionId == null && isInitialize(payload);
+            if (sessionId != null && payload instanceof Map<?, ?> message &&
+                    "tools/call".equals(message.get("method")) && message.get("id") != null) { // can be cancelled by its id
+                MCPCancellation.Accessor.bind(request, new MCPCancellation(String.valueOf(message.get("id"))));
+            }
+            return handler.execute(payload, request).thenApply(result -> {
+                if (isNotificationsOnly(payload)) {
+                    return Response.of().status(202).build();
+                }
+
+                String newSession = null;
+                if (initialize && result instanceof io.yupiik.fusion.jsonrpc.Response r && r.error() == null) {
+                    newSession = sessions.create().id();
+                }
+                return json(newSession, result);
+            });
+        });
+    }
+
+    @HttpMatcher(methods = "DELETE", path = "/mcp")
+    public CompletionStage<Response> delete(final Request request) {
+        final var sessionId = request.header(SESSION_HEADER);
+        if (sessionId == null) {
+            return completedFuture(Response.of().status(400).build());
+        }
+        return completedFuture(Response.of().status(sessions.remove(sessionId) ? 204 : 404).build());
+    }
+
+    // MCP methods rely on the session handling and the response writer of this transport,
+    // the raw JSON-RPC endpoint (fusion.jsonrpc.binding) must not serve them
+    static boolean isTransportRequest(final Request request) {
+        return request != null && request.attribute(MCPHttpTransport.class.getName(), Boolean.class) != null;
+    }
+
+    private Response json(final String session, final Object payload) {
+        final var response = Response.of()
+                .status(200)
+                .header("content-type", "application/json");
+        if (session != null) {
+            response.header(SESSION_HEADER, session);
+        }
+        final var body = writer.body(payload);
+        if (body instanceof String json) {
+            return response.body(json).build();
+        }
+        @SuppressWarnings("unchecked") final var publisher = (Flow.Publisher<ByteBuffer>) body;
+        return response.body(publisher).build();
+    }
+
+    private boolean isInitialize(final Object payload) {
+        return payload instanceof Map<?, ?> map && "initialize".equals(map.get("method"));
+    }
+
+    // notifications and responses (to server requests) get a 202 without body
+    private boolean isNotificationsOnly(final Object payload) {
+        if (payload instanceof Map<?, ?> map) {
+            return isNotificationOrResponse(map);
+        }
+        if (payload instanceof Collection<?> list && !list.isEmpty()) {
+            return list.stream().allMatch(it -> it instanceof Map<?, ?> m && isNotificationOrResponse(m));
+        }
+        return false;
+    }
+
+    private boolean isNotificationOrResponse(final Map<?, ?> message) {
+        return !message.containsKey("id") || !message.containsKey("method");
+    }
+}
@@ -15,24 +15,30 @@
  */
 package io.yupiik.fusion.mcp.protocol;
 
+import io.yupiik.fusion.framework.api.configuration.Configuration;
 import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
+import io.yupiik.fusion.framework.build.api.lifecycle.Destroy;
 import io.yupiik.fusion.framework.build.api.jsonrpc.JsonRpc;
 import io.yupiik.fusion.framework.build.api.jsonrpc.JsonRpcParam;
 import io.yupiik.fusion.http.server.api.Request;
 import io.yupiik.fusion.json.JsonMapper;
 import io.yupiik.fusion.jsonrpc.JsonRpcException;
-import io.yupiik.fusion.jsonrpc.JsonRpcHandler;
 import io.yupiik.fusion.jsonrpc.JsonRpcRegistry;
-import io.yupiik.fusion.jsonrpc.Response;
+import io.yupiik.fusion.jsonrpc.impl.JsonRpcMethod;
+import io.yupiik.fusion.mcp.api.MCPCompletionProvider;
+import io.yupiik.fusion.mcp.api.MCPResourceProvider;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
 import io.yupiik.fusion.mcp.model.Capabilities;
 import io.yupiik.fusion.mcp.model.ClientInfo;
+import io.yupiik.fusion.mcp.model.BinaryContent;
 import io.yupiik.fusion.mcp.model.CompleteResult;
+import io.yupiik.fusion.mcp.model.ContentStream;
 import io.yupiik.fusion.mcp.model.CompletionArgument;
 import io.yupiik.fusion.mcp.model.CompletionContext;
 import io.yupiik.fusion.mcp.model.CompletionRef;
 import io.yupiik.fusion.mcp.model.InitializeResponse;
-import io.yupiik.fusion.mcp.model.JsonSchema;
 import io.yupiik.fusion.mcp.model.ListPromptsResponse;
+import io.yupiik.fusion.mcp.model.ListResourceTemplatesResponse;
 import io.yupiik.fusion.mcp.model.ListResourcesResponse;
 import io.yupiik.fusion.mcp.model.ListToolsResponse;
 import io.yupiik.fusion.mcp.model.LoggingLevel;
@@ -40,102 +46,232 @@ import io.yupiik.fusion.mcp.model.Metadata;
 import io.yupiik.fusion.mcp.model.PromptResponse;
 import io.yupiik.fusion.mcp.model.ReadResourceResponse;
 import io.yupiik.fusion.mcp.model.ToolResponse;
-import io.yupiik.fusion.mcp.model.fusion.OpenRpc;
+import io.yupiik.fusion.mcp.model.fusion.MCPCatalog;
 import io.yupiik.fusion.mcp.service.OpenRpcService;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
-
-import static java.util.Optional.ofNullable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 @ApplicationScoped
 public class MCPJSONRPCProtocol {
-    private final InitializeResponse initializeResponse;
-    private final JsonRpcHandler handler;
+    // _meta keys of tools/list and prompts/list, a client sending back the hash it knows gets an empty not modified list
+    public static final String CATALOG_HASH = "io.yupiik.fusion.mcp/catalogHash";
+    public static final String IF_NONE_MATCH = "io.yupiik.fusion.mcp/ifNoneMatch";
+    public static final String NOT_MODIFIED = "io.yupiik.fusion.mcp/notModified";
+    // tools/call rejected by admission control (implementation defined server error), error.data.retryAfter is a hint in milliseconds
+    public static final int OVERLOADED = -32029;
+    // tools/call cancelled by a notifications/cancelled, the client ignores the response anyway
+    public static final int CANCELLED = -32800;
+
     private final JsonMapper jsons;
-    private final ListToolsResponse tools;
-    private final ListPromptsResponse prompts;
+    private final OpenRpcService openRpcService;
+    private final JsonRpcRegistry registry;
+    private final MCPServerConfiguration configuration;
+    private final Configuration rawConfiguration;
+    private final SerializedResults serializedResults;
+    private final MCPSessionRegistry sessions;
+    private final SseEncoder encoder;
+    private final List<MCPResourceProvider> resourceProviders;
+    private final MCPResourceSubscriptions subscriptions;
+    private final CompletionIndex completions;
+    private final ExecutorService virtualThreads;
+    private final ScheduledThreadPoolExecutor queueTimeouts;
+    private final boolean virtualByDefault;
+    private final ConcurrencyLimiter globalLimiter;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private volatile Predicate<String> filter = name -> true;
 
     // for subclassing proxies
     protected MCPJSONRPCProtocol() {
-        tools = null;
-        prompts = null;
-        initializeResponse = null;
-        handler = null;
         jsons = null;
+        openRpcService = null;
+        registry = null;
+        configuration = null;
+        rawConfiguration = null;
+        serializedResults = null;
+        sessions = null;
+        encoder = null;
+        resourceProviders = null;
+        subscriptions = null;
+        completions = null;
+        virtualThreads = null;
+        queueTimeouts = null;
+        virtualByDefault = false;
+        globalLimiter = null;
     }
 
     public MCPJSONRPCProtocol(final OpenRpcService openRpcService,
                               final JsonMapper jsons,
-                              final JsonRpcHandler handler,
-                              final JsonRpcRegistry registry) {
-        final var openrpc = openRpcService.load();
-        final var schemas = openRpcService.resolveSchemas(openrpc);
-
-        this.handler = handler;
+                              final JsonRpcRegistry registry,
+                              final MCPServerConfiguration configuration,
+                              final Configuration rawConfiguration,
+                              final SerializedResults serializedResults,
+                              final MCPSessionRegistry sessions,
+                              final SseEncoder encoder,
+                              final List<MCPResourceProvider> resourceProviders,
+                              final MCPResourceSubscriptions subscriptions,
+                              final List<MCPCompletionProvider> completionProviders) {
+        this.virtualByDefault = isVirtual(configuration.tools().executor(), "fusion.mcp.tools.executor");
         this.jsons = jsons;
+        this.openRpcService = openRpcService;
+        this.registry = registry;
+        this.configuration = configuration;
+        this.rawConfiguration = rawConfiguration;
+        this.serializedResults = serializedResults;
+        this.sessions = sessions;
+        this.encoder = encoder;
+        this.resourceProviders = resourceProviders == null ? List.of() : List.copyOf(resourceProviders);
+        this.subscriptions = subscriptions;
+        this.completions = new CompletionIndex(
+                completionProviders == null ? List.of() : completionProviders,
+                configuration.completion().cacheTtl(), configuration.completion().cacheSize());
+        this.virtualThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("fusion-mcp-tool-", 0).factory());
+        this.queueTimeouts = new ScheduledThreadPoolExecutor(1, r -> { // thread only started by the first queued call
+            final var thread = new Thread(r, "fusion-mcp-concurrency-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.queueTimeouts.setRemoveOnCancelPolicy(true); // timeouts are cancelled when the slot is granted
+        final var concurrency = configuration.concurrency();
+        this.globalLimiter = concurrency.globalLimit() <= 0 ? null : new ConcurrencyLimiter(
+                "tools", concurrency.globalLimit(), concurrency.queueSize(), concurrency.queueTimeout(), concurrency.targetLatency(),
+                virtualThreads, queueTimeouts);
+        this.snapshot.set(load(filter));
+    }
+
+    @Destroy
+    protected void destroy() {
+        virtualThreads.shutdownNow();
+        queueTimeouts.shutdownNow();
+    }
+
+    ExecutorService toolExecutor() {
+        return virtualThreads;
+    }
+
+    // rebuilds the catalog (new methods, plugins, feature flags, ...) and swaps it atomically,
+    // connected clients are notified with a list_changed notification if their list changed
+    public void reload() {
+        reload(filter);
+    }
 
-        this.tools = new ListToolsResponse(openrpc.methods().values().stream()
-                .filter(it -> "tool".equals(registry.methods().get(it.name()).metadata().getOrDefault("mcp.type", "")))
-                .map(it -> new ListToolsResponse.Tool(
-                        null,
-                        null,
-                        it.name(),
-                        it.name(),
-                        it.description(),
-                        new JsonSchema(
-                                it.params().isEmpty(),
-                                "Input request for " + it.name(),
-                                it.params().stream()
-                                        .collect(toMap(
-                                                OpenRpc.JsonRpcMethod.Parameter::name,
-                                                p -> toMcpSchema(
-                                                        ofNullable(openRpcService.resolveRefs(schemas, p.schema()))
-                                                                .orElse(p.schema())))),
-                                it.params().stream()
-                                        .filter(p -> p.required() != null && p.required())
-                                        .map(OpenRpc.JsonRpcMethod.Parameter::name)
-                                        .sorted()
-                                        .toList()
-                        ),
-                        registry.methods().get(it.name()).isNotification() || it.result() == null || it.result().schema() == null || "null".equals(it.result().schema().type()) ?
-                                null :
-                                toMcpSchema(openRpcService.resolveRefs(schemas, it.result().schema()))))
-                .toList(),
-                // no pagination since we have a few tools for now
-                null);
-        this.prompts = new ListPromptsResponse(openrpc.methods().values().stream()
-                .filter(it -> "prompt".equals(registry.methods().get(it.name()).metadata().getOrDefault("mcp.type", "")))
-                .map(it -> new ListPromptsResponse.Prompt(
-                        null,
-                        it.name(),
-                        it.name(),
-                        it.description(),
-                        // there params are only strings!
-                        it.params().stream()
-                                .map(p -> new ListPromptsResponse.Prompt.Argument(
-                                        p.name(), p.name(),
-                                        p.schema().description(),
-                                        p.schema().nullable() != null && !p.schema().nullable()
-                                ))
-                                .toList()))
-                .toList(),
-                // no pagination since we have a few prompts for now
-                null);
-
-        initializeResponse = new InitializeResponse(
+    // filter is applied on tool and prompt names and kept for next reloads
+    public synchronized void reload(final Predicate<String> filter) {
+        this.filter = filter;
+        final var next = load(filter);
+        final var previous = snapshot.getAndSet(next);
+        if (previous != null) {
+            // in-flight responses still referencing these results are just serialized normally
+            for (final var result : previous.serialized()) {
+                serializedResults.remove(result);
+            }
+            if (!previous.toolCatalog().hash().equals(next.toolCatalog().hash())) {
+                broadcast("notifications/tools/list_changed");
+            }
+            if (!previous.promptCatalog().hash().equals(next.promptCatalog().hash())) {
+                broadcast("notifications/prompts/list_changed");
+            }
+            if (!previous.resources().catalog().hash().equals(next.resources().catalog().hash()) ||
+                    !previous.resources().templateCatalog().hash().equals(next.resources().templateCatalog().hash())) {
+                broadcast("notifications/resources/list_changed");
+            }
+        }
+    }
+
+    private void broadcast(final String method) {
+        final int count = sessions.broadcast(encoder.encodeNotification(null, method, null));
+        Logger.getLogger(getClass().getName()).fine(() -> "Sent '" + method + "' to " + count + " streams");
+    }
+
+    private Snapshot load(final Predicate<String> filter) {
+        // tools/call and prompts/get invoke the method directly instead of going through the JSON-RPC handler again
+        final var toolMethods = methodsOfType(registry, "tool", filter);
+        final var promptMethods = methodsOfType(registry, "prompt", filter);
+        final var structuredOnlyTools = toolMethods.values().stream()
+                .filter(it -> "false".equals(it.metadata().get("mcp.structuredContent.text")))
+                .map(JsonRpcMethod::name)
+                .collect(toSet());
+        final var virtualThreadTools = toolMethods.values().stream()
+                .filter(it -> {
+                    final var executor = it.metadata().get("mcp.executor");
+                    return executor == null ? virtualByDefault : isVirtual(executor, "mcp.executor of tool '" + it.name() + "'");
+                })
+                .map(JsonRpcMethod::name)
+                .collect(toSet());
+        // kept by tool name on reload so in-flight calls and waiters still count against the (reconfigured) limit
+        final var previous = snapshot.get();
+        final var limiters = new HashMap<String, ConcurrencyLimiter>();
+        for (final var method : toolMethods.values()) {
+            final var limiter = toolLimiter(method, previous == null ? null : previous.limiters().get(method.name()));
+            if (limiter != null) {
+                limiters.put(method.name(), limiter);
+            }
+        }
+
+        final var catalog = loadCatalog(toolMethods, promptMethods);
+        final var resources = loadResources(filter);
+        final var validators = configuration.tools().validateArguments() ?
+                catalog.tools().stream().collect(toMap(ListToolsResponse.Tool::name, it -> SchemaValidator.compile(it.name(), it.inputSchema()))) :
+                Map.<String, SchemaValidator>of();
+
+        // catalogs are immutable so items are serialized once and first pages are fully pre-serialized
+        final int pageSize = configuration.catalog().pageSize();
+        final var toolCatalog = new Catalog<>(catalog.tools(), ListToolsResponse.Tool::name, jsons::toString, pageSize);
+        final var promptCatalog = new Catalog<>(catalog.prompts(), ListPromptsResponse.Prompt::name, jsons::toString, pageSize);
+
+        final var firstTools = toolCatalog.page(null);
+        final var tools = new ListToolsResponse(catalogMetadata(toolCatalog.hash(), false), firstTools.items(), firstTools.nextCursor());
+        final var toolsNotModified = new ListToolsResponse(catalogMetadata(toolCatalog.hash(), true), List.of(), null);
+        final var firstPrompts = promptCatalog.page(null);
+        final var prompts = new ListPromptsResponse(catalogMetadata(promptCatalog.hash(), false), firstPrompts.items(), firstPrompts.nextCursor());
+        final var promptsNotModified = new ListPromptsResponse(catalogMetadata(promptCatalog.hash(), true), List.of(), null);
+        final var serialized = List.<Object>of(tools, toolsNotModified, prompts, promptsNotModified);
+        for (final var result : serialized) {
+            serializedResults.put(result, jsons.toString(result));
+        }
+
+        final var initializeResponse = new InitializeResponse(
                 "2025-06-18",
                 new InitializeResponse.Capabilities(
                         null, // todo
-                        prompts.prompts().isEmpty() ? null : new InitializeResponse.Prompts(false),
-                        null, // todo: enable user to expose resources
-                        tools.tools().isEmpty() ? null : new InitializeResponse.Tools(false),
-                        null, // todo
+                        promptCatalog.size() == 0 ? null : new InitializeResponse.Prompts(true),
+                        resources.catalog().size() == 0 && resources.templateCatalog().size() == 0 ?
+                                null : new InitializeResponse.Resources(true, true),
+                        toolCatalog.size() == 0 ? null : new InitializeResponse.Tools(true),
+                        completions.isEmpty() ? null : Map.of(),
                         null),
                 new InitializeResponse.ServerInfo("fusion-mcp-server", "Fusion MCP Server", "1.0.0"),
                 "Use tool");
+
+        return new Snapshot(
+                initializeResponse,
+                toolCatalog, tools, toolsNotModified,
+                promptCatalog, prompts, promptsNotModified,
+                resources,
+                toolMethods, promptMethods, structuredOnlyTools, virtualThreadTools, limiters, validators,
+                serialized);
     }
 
     // https://modelcontextprotocol.io/specification/2025-06-18/basic/lifecycle
@@ -143,8 +279,11 @@ public class MCPJSONRPCProtocol {
     public InitializeResponse initialize(
             @JsonRpcParam(required = true) final String protocolVersion,
             @JsonRpcParam final Capabilities capabilities,
-            @JsonRpcParam final ClientInfo clientInfo
+            @JsonRpcParam final ClientInfo clientInfo,
+            final Request request
     ) {
+        requireTransport(request);
+        final var initializeResponse = snapshot.get().initializeResponse();
         if (!protocolVersion.startsWith("2025")) {
             throw new JsonRpcException(-32602, "Unsupported protocol version", Map.of(
                     "supported", List.of(initializeResponse.protocolVersion()),
@@ -158,18 +297,22 @@ public class MCPJSONRPCProtocol {
     }
 
     @JsonRpc("notifications/initialized")
-    public void onInitialize(@JsonRpcParam("_meta") final Metadata metadata, final Request request) {
-        MCPSession.Accessor.create(request);
+    public void onInitialize(@JsonRpcParam("_meta") final Metadata metadata) {
+        // no-op: session is created by the transport when responding to initialize
     }
 
     @JsonRpc("notifications/cancelled")
     public void onCancelled(@JsonRpcParam final String reason,
-                            @JsonRpcParam final String requestId,
+                            @JsonRpcParam final Object requestId, // string or number
                             final Request request) {
-        final var sse = MCPSession.Accessor.get(request).sse();
-        if (sse != null) {
-            sse.cancel();
+        if (requestId == null) {
+            return;
         }
+        MCPSession.Accessor.find(request).ifPresent(session -> {
+            if (!session.cancel(String.valueOf(requestId), reason)) {
+                Logger.getLogger(getClass().getName()).finest(() -> "No in-flight request '" + requestId + "' to cancel");
+            }
+        });
     }
 
     @JsonRpc("notifications/progress")
@@ -179,7 +322,7 @@ public class MCPJSONRPCProtocol {
             @JsonRpcParam final Object progressToken, // int or string
             @JsonRpcParam final Double total
     ) {
-        // no-op
+        // no-op: the server does not send requests with a progress token to the client
     }
 
     @JsonRpc("notifications/roots/list_changed")
@@ -188,16 +331,21 @@ public class MCPJSONRPCProtocol {
     }
 
     @JsonRpc("completion/complete")
-    public CompleteResult completion(@JsonRpcParam final CompletionArgument argument,
-                                     @JsonRpcParam final CompletionContext context,
-                                     @JsonRpcParam final CompletionRef ref) {
-        // todo
-        return new CompleteResult(null, new CompleteResult.Completion(false, 0, List.of()));
+    public CompletionStage<CompleteResult> completion(@JsonRpcParam final CompletionArgument argument,
+                                                      @JsonRpcParam final CompletionContext context,
+                                                      @JsonRpcParam final CompletionRef ref) {
+        if (argument == null || ref == null || ref.type() == null) {
+            throw new JsonRpcException(-32602, "Missing ref or argument");
+        }
+        return completions.complete(
+                        ref.type(), "ref/resource".equals(ref.type()) ? ref.uri() : ref.name(),
+                        argument.name(), argument.value(), context == null ? null : context.arguments())
+                .thenApply(completion -> new CompleteResult(null, completion));
     }
 
     @JsonRpc("logging/setLevel")
     public void setLoggingLevel(@JsonRpcParam final String level, final Request request) {
-        if (initializeResponse.capabilities().logging() != null) {
+        if (snapshot.get().initializeResponse().capabilities().logging() != null) {
             MCPSession.Accessor.get(request).setLoggingLevel(LoggingLevel.valueOf(level));
         }
     }
@@ -210,67 +358,149 @@ public class MCPJSONRPCProtocol {
 
     @JsonRpc("tools/list")
     public ListToolsResponse listTools(
-            @JsonRpcParam final String cursor) {
-        return tools;
+            @JsonRpcParam final String cursor,
+            @JsonRpcParam("_meta") final Metadata metadata,
+            final Request request) {
+        requireTransport(request);
+        final var current = snapshot.get();
+        if (cursor == null) {
+            return isNotModified(metadata, current.tools().metadata()) ? current.toolsNotModified() : current.tools();
+        }
+        final var page = current.toolCatalog().page(cursor);
+        return new ListToolsResponse(current.tools().metadata(), page.items(), page.nextCursor());
     }
 
     @JsonRpc("resources/list")
     public ListResourcesResponse listResources(
-            @JsonRpcParam final String cursor) {
-        // todo: expose it with a SPI or just let the user define the jsonrpc method if needed?
-        return new ListResourcesResponse(List.of(), null);
+            @JsonRpcParam final String cursor,
+            final Request request) {
+        requireTransport(request);
+        final var page = snapshot.get().resources().catalog().page(cursor);
+        return new ListResourcesResponse(page.items(), page.nextCursor());
     }
 
-    @JsonRpc("resources/read")
-    public ReadResourceResponse readResource(
-            @JsonRpcParam final String uri) {
-        // todo: expose it with a SPI or just let the user define the jsonrpc method if needed?
-        return new ReadResourceResponse(null, List.of());
+    @JsonRpc("resources/read") // result is a ReadResourceResponse or a BinaryResource
+    public CompletionStage<Object> readResource(
+            @JsonRpcParam(required = true) final String uri,
+            final Request httpRequest) {
+        requireTransport(httpRequest);
+        final var match = findResourceProvider(snapshot.get().resources(), uri);
+        return (match.template() == null ?
+                match.value().read(uri, httpRequest) :
+                match.value().read(uri, match.variables(), httpRequest))
+                .thenApply(identity());
     }
 
     @JsonRpc("resources/subscribe")
     public void subscribeResource(
-            @JsonRpcParam final String uri) {
-        // no-op: todo
+            @JsonRpcParam(required = true) final String uri,
+            final Request request) {
+        final var session = MCPSession.Accessor.find(request)
+                .orElseThrow(() -> new JsonRpcException(-32600, "resources/subscribe requires a session"));
+        final var provider = findResourceProvider(snapshot.get().resources(), uri).value();
+        subscriptions.subscribe(session, uri, provider.localFile(uri).orElse(null));
     }
 
     @JsonRpc("resources/unsubscribe")
     public void unsubscribeResource(
-            @JsonRpcParam final String uri) {
-        // no-op: todo
+            @JsonRpcParam(required = true) final String uri,
+            final Request request) {
+        MCPSession.Accessor.find(request).ifPresent(session -> subscriptions.unsubscribe(session, uri));
     }
 
     @JsonRpc("resources/templates/list")
-    public ListResourcesResponse listResourceTemplates(
-            @JsonRpcParam final String cursor) {
-        // todo: expose it with a SPI or just let the user define the jsonrpc method if needed?
-        return new ListResourcesResponse(List.of(), null);
+    public ListResourceTemplatesResponse listResourceTemplates(
+            @JsonRpcParam final String cursor,
+            final Request request) {
+        requireTransport(request);
+        final var page = snapshot.get().resources().templateCatalog().page(cursor);
+        return new ListResourceTemplatesResponse(page.items(), page.nextCursor());
     }
 
     @JsonRpc("prompts/list")
     public ListPromptsResponse listPrompts(
-            @JsonRpcParam final String cursor) {
-        return prompts;
-    }
-
-    @JsonRpc("tools/call")
-    public CompletionStage<ToolResponse> callTool(@JsonRpcParam final String name,
-                                                  @JsonRpcParam final Object arguments,
-                                                  final Request httpRequest) {
-        return handler
-                .execute(Map.of(
-                        "jsonrpc", "2.0",
-                        "method", name,
-                        "params", arguments
-                ), httpRequest)
+            @JsonRpcParam final String cursor,
+            @JsonRpcParam("_meta") final Metadata metadata,
+            final Request request) {
+        requireTransport(request);
+        final var current = snapshot.get();
+        if (cursor == null) {
+            return isNotModified(metadata, current.prompts().metadata()) ? current.promptsNotModified() : current.prompts();
+        }
+        final var page = current.promptCatalog().page(cursor);
+        return new ListPromptsResponse(current.prompts().metadata(), page.items(), page.nextCursor());
+    }
+
+    @JsonRpc("tools/call") // result is a ToolResponse, a StructuredToolResult, a BinaryContent or a ContentStream, all written by the transport
+    public CompletionStage<Object> callTool(@JsonRpcParam final String name,
+                                            @JsonRpcParam final Object arguments,
+                                            @JsonRpcParam("_meta") final Metadata metadata,
+                                            final Request httpRequest) {
+        requireTransport(httpRequest);
+        final var current = snapshot.get(); // a single snapshot for the whole call
+        final var validator = current.validators().get(name);
+        if (validator != null) { // reject before the tool (and its deserialization) runs
+            final var errors = validator.validate(arguments == null ? Map.of() : arguments);
+            if (!errors.isEmpty()) {
+                throw new JsonRpcException(-32602, "Invalid arguments for tool '" + name + "'", Map.of("errors", errors), null);
+            }
+        }
+        final var session = MCPSession.Accessor.find(httpRequest).orElse(null);
+        final var cancellation = session == null ? null : MCPCancellation.Accessor.find(httpRequest).orElse(null);
+        final var progressToken = metadata == null || metadata.others() == null ? null : metadata.others().get("progressToken");
+        final var progress = session == null || progressToken == null ?
+                null : new MCPProgress(progressToken, session, encoder, configuration.tools().progressInterval());
+        if (progress != null) {
+            MCPProgress.Accessor.bind(httpRequest, progress);
+        }
+
+        // blocking tools run on a virtual thread, the request thread is released until the stage completes
+        final Supplier<CompletionStage<Object>> invocation = current.virtualThreadTools().contains(name) ?
+                () -> supplyAsync(() -> {
+                    if (cancellation == null) {
+                        return invoke(current.toolMethods(), "tool", name, arguments, httpRequest);
+                    }
+                    cancellation.enter();
+                    try {
+                        return invoke(current.toolMethods(), "tool", name, arguments, httpRequest);
+                    } finally {
+                        cancellation.exit();
+                    }
+                }, virtualThreads).thenCompose(identity()) :
+                () -> invoke(current.toolMethods(), "tool", name, arguments, httpRequest);
+        final Supplier<CompletionStage<Object>> call = cancellation == null ? invocation : () -> {
+            if (cancellation.isCancelled()) { // cancelled while waiting for a slot
+                return failedFuture(cancellation.cancelledError());
+            }
+            return invocation.get();
+        };
+        // tool bulkhead first so a call waiting for its tool does not hold a global slot
+        final Supplier<CompletionStage<Object>> admitted = globalLimiter == null ? call : () -> globalLimiter.execute(call, cancellation);
+        final var toolLimiter = current.limiters().get(name);
+        if (cancellation != null) {
+            session.register(cancellation);
+        }
+        final CompletionStage<Object> result;
+        try {
+            final var limited = toolLimiter == null ? admitted.get() : toolLimiter.execute(admitted, cancellation);
+            // the client gets -32800 right away but slots are only released when the tool really completes
+            result = cancellation == null ? limited : cancellation.attach(limited);
+        } catch (final RuntimeException re) {
+            onCallEnd(session, cancellation, progress);
+            throw re;
+        }
+        return (cancellation == null && progress == null ? result : result.whenComplete((ok, ko) -> onCallEnd(session, cancellation, progress)))
                 .thenApply(res -> {
-                    if (res instanceof Response r && r.result() != null) {
-                        if (r.result() instanceof ToolResponse tr) {
-                            return tr;
-                        }
-                        return ToolResponse.structure(jsons, r.result());
+                    if (res instanceof ToolResponse || res instanceof BinaryContent || res instanceof ContentStream) {
+                        return res;
+                    }
+                    if (res == null) { // void tool
+                        return new ToolResponse(null, false, List.of(), null);
                     }
-                    return onError(res);
+                    if (res instanceof Flow.Publisher<?> publisher) { // streamed by the transport
+                        return ContentStream.of(publisher);
+                    }
+                    return new StructuredToolResult(res, configuration.tools().structuredContentText() && !current.structuredOnlyTools().contains(name));
                 });
     }
 
@@ -278,17 +508,13 @@ public class MCPJSONRPCProtocol {
     public CompletionStage<PromptResponse> callPrompt(@JsonRpcParam final String name,
                                                       @JsonRpcParam final Map<String, Object> arguments,
                                                       final Request httpRequest) {
-        return handler
-                .execute(Map.of(
-                        "jsonrpc", "2.0",
-                        "method", name,
-                        "params", arguments
-                ), httpRequest)
+        requireTransport(httpRequest);
+        return invoke(snapshot.get().promptMethods(), "prompt", name, arguments, httpRequest)
                 .thenApply(res -> {
-                    if (res instanceof Response r && r.result() instanceof PromptResponse pr) {
+                    if (res instanceof PromptResponse pr) {
                         return pr;
                     }
-                    return onError(res);
+                    throw new JsonRpcException(-32603, "Unexpected result");
                 });
     }
 
@@ -323,34 +549,200 @@ public class MCPJSONRPCProtocol {
     }
     */
 
-    private <T> T onError(final Object res) {
-        if (res instanceof Response r && r.error() != null) {
-            throw new JsonRpcException(r.error().code(), r.error().message(), r.error().message(), null);
+    @SuppressWarnings("unchecked")
+    private CompletionStage<Object> invoke(final Map<String, JsonRpcMethod> methods, final String type,
+                                           final String name, final Object arguments, final Request httpRequest) {
+        final var method = methods.get(name);
+        if (method == null) {
+            throw new JsonRpcException(-32602, "Unknown " + type + ": '" + name + "'");
+        }
+        final CompletionStage<Object> stage;
+        try {
+            stage = (CompletionStage<Object>) method.invoke(new JsonRpcMethod.Context(httpRequest, arguments == null ? Map.of() : arguments));
+        } catch (final RuntimeException re) {
+            return failedFuture(toJsonRpcError(type, name, re));
+        }
+        return stage.exceptionally(error -> {
+            throw toJsonRpcError(type, name, error);
+        });
+    }
+
+    // same errors as when the method was called through the JSON-RPC handler:
+    // a JsonRpcException is kept as is, anything else is an internal error with the failure message
+    private JsonRpcException toJsonRpcError(final String type, final String name, final Throwable error) {
+        final var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof JsonRpcException jre) {
+            return jre;
+        }
+        Logger.getLogger(getClass().getName()).log(Level.FINE, cause, () -> "Failure of " + type + " '" + name + "'");
+        final var message = cause.getMessage() == null ? cause.getClass().getName() : cause.getMessage();
+        return new JsonRpcException(-32603, message, message, cause);
+    }
+
+    private void onCallEnd(final MCPSession session, final MCPCancellation cancellation, final MCPProgress progress) {
+        if (cancellation != null) {
+            session.unregister(cancellation);
+        }
+        if (progress != null) { // pending progress is sent before the response
+            progress.close();
         }
+    }
 
-        // unlikely
-        throw new JsonRpcException(-32603, "Unexpected result");
+    // caller runs the tool on the request thread, virtual on a virtual thread per call
+    private boolean isVirtual(final String executor, final String source) {
+        return switch (executor) {
+            case "caller" -> false;
+            case "virtual" -> true;
+            default -> throw new IllegalArgumentException("Unknown executor '" + executor + "' (" + source + "), available: [caller, virtual]");
+        };
     }
 
-    private JsonSchema toMcpSchema(final OpenRpc.JsonSchema schema) {
-        if (schema == null) {
+    // tool metadata (mcp.concurrency.<key>) then configuration (fusion.mcp.concurrency.tools.<tool>.<key>) override the defaults
+    private ConcurrencyLimiter toolLimiter(final JsonRpcMethod method, final ConcurrencyLimiter previous) {
+        final var defaults = configuration.concurrency();
+        final int limit = concurrencySetting(method, "limit", Integer::parseInt, defaults.toolLimit());
+        if (limit <= 0) {
             return null;
         }
-        return new JsonSchema(
-                schema.type(), schema.nullable(), null, schema.description(), schema.format(), schema.pattern(),
-                schema.properties() == null ? null : schema.properties().entrySet().stream()
-                        .collect(toMap(Map.Entry::getKey, it -> toMcpSchema(it.getValue()))),
-                schema.additionalProperties() instanceof Map<?, ?> ?
-                        toMcpSchema(jsons.fromString(OpenRpc.JsonSchema.class, jsons.toString(schema.additionalProperties()))) :
-                        schema.additionalProperties(),
-                toMcpSchema(schema.items()), schema.enumeration(),
-                schema.properties() == null ?
-                        null :
-                        schema.properties()
-                                .entrySet().stream()
-                                .filter(it -> it.getValue().nullable() != null && !it.getValue().nullable())
-                                .map(Map.Entry::getKey)
-                                .toList(),
-                null);
+        final int queueSize = concurrencySetting(method, "queueSize", Integer::parseInt, defaults.queueSize());
+        final long queueTimeout = concurrencySetting(method, "queueTimeout", Long::parseLong, defaults.queueTimeout());
+        final long targetLatency = concurrencySetting(method, "targetLatency", Long::parseLong, defaults.targetLatency());
+        if (previous != null) {
+            previous.configure(limit, queueSize, queueTimeout, targetLatency);
+            return previous;
+        }
+        return new ConcurrencyLimiter(method.name(), limit, queueSize, queueTimeout, targetLatency, virtualThreads, queueTimeouts);
+    }
+
+    private <T> T concurrencySetting(final JsonRpcMethod method, final String key, final Function<String, T> parser, final T defaultValue) {
+        return rawConfiguration.get("fusion.mcp.concurrency.tools." + method.name() + '.' + key)
+                .or(() -> Optional.ofNullable(method.metadata().get("mcp.concurrency." + key)))
+                .map(String::strip)
+                .map(parser)
+                .orElse(defaultValue);
+    }
+
+    // concrete resources first (no template in the match), then templates
+    private UriTemplateRouter.Match<MCPResourceProvider> findResourceProvider(final Resources resources, final String uri) {
+        final var provider = resources.providers().get(uri);
+        if (provider != null) {
+            return new UriTemplateRouter.Match<>(null, provider, Map.of());
+        }
+        final var match = resources.router().match(uri);
+        if (match == null) {
+            throw resourceNotFound(uri);
+        }
+        return match;
+    }
+
+    // the raw JSON-RPC endpoint has no session and serializes results without the transport writer (sentinels, streams, slices)
+    private void requireTransport(final Request request) {
+        if (!MCPHttpTransport.isTransportRequest(request)) {
+            throw new JsonRpcException(-32600, "MCP methods are only served by the MCP endpoint (/mcp)");
+        }
+    }
+
+    private JsonRpcException resourceNotFound(final String uri) {
+        return new JsonRpcException(-32002, "Resource not found", Map.of("uri", uri), null);
+    }
+
+    // uri -> provider index so reads do not depend on the number of resources, descriptors are listed once per reload
+    private Resources loadResources(final Predicate<String> filter) {
+        final var providers = new ArrayList<MCPResourceProvider>(resourceProviders);
+        for (final var method : methodsOfType(registry, "resource", filter).values()) {
+            final var uri = method.metadata().get("mcp.resource.uri");
+            final var uriTemplate = method.metadata().get("mcp.resource.uriTemplate");
+            if (uri == null && uriTemplate == null) {
+                Logger.getLogger(getClass().getName()).warning(() -> "Ignoring resource '" + method.name() + "' without mcp.resource.uri nor mcp.resource.uriTemplate metadata");
+                continue;
+            }
+            providers.add(new MethodResourceProvider(method, uri, uriTemplate, jsons));
+        }
+
+        final var index = new HashMap<String, MCPResourceProvider>();
+        final var descriptors = new ArrayList<ListResourcesResponse.Resource>();
+        for (final var provider : providers) {
+            for (final var resource : provider.resources()) {
+                if (index.putIfAbsent(resource.uri(), provider) == null) {
+                    descriptors.add(resource);
+                } else {
+                    Logger.getLogger(getClass().getName()).warning(() -> "Resource '" + resource.uri() + "' is provided twice, ignoring " + provider);
+                }
+            }
+        }
+
+        // templates are only tried when no concrete resource has the uri
+        final var router = new UriTemplateRouter<MCPResourceProvider>();
+        final var templates = new ArrayList<ListResourceTemplatesResponse.ResourceTemplate>();
+        for (final var provider : providers) {
+            for (final var template : provider.templates()) {
+                try {
+                    router.add(template.uriTemplate(), provider);
+                    templates.add(template);
+                } catch (final IllegalArgumentException iae) {
+                    Logger.getLogger(getClass().getName()).warning(() -> "Ignoring resource template of " + provider + ": " + iae.getMessage());
+                }
+            }
+        }
+
+        final int pageSize = configuration.catalog().pageSize();
+        return new Resources(
+                new Catalog<>(descriptors, ListResourcesResponse.Resource::uri, jsons::toString, pageSize),
+                index,
+                new Catalog<>(templates, ListResourceTemplatesResponse.ResourceTemplate::uriTemplate, jsons::toString, pageSize),
+                router);
+    }
+
+    // prefer the build time catalog when it is up to date, it avoids to parse and convert OpenRPC schemas
+    private MCPCatalog loadCatalog(final Map<String, JsonRpcMethod> toolMethods, final Map<String, JsonRpcMethod> promptMethods) {
+        return openRpcService.loadCatalog()
+                .filter(it -> {
+                    final boolean upToDate = it.covers(toolMethods.keySet(), promptMethods.keySet());
+                    if (!upToDate) { // openrpc.json is the same but methods come from elsewhere (plugins)
+                        Logger.getLogger(getClass().getName()).warning("Build time MCP catalog does not cover all methods, ignoring it");
+                    }
+                    return upToDate;
+                })
+                .map(it -> it.filter(toolMethods.keySet(), promptMethods.keySet()))
+                .orElseGet(() -> openRpcService.toCatalog(openRpcService.load(), toolMethods, promptMethods));
+    }
+
+    private boolean isNotModified(final Metadata request, final Metadata catalog) {
+        return request != null && request.others() != null &&
+                catalog.others().get(CATALOG_HASH).equals(request.others().get(IF_NONE_MATCH));
+    }
+
+    private Metadata catalogMetadata(final String hash, final boolean notModified) {
+        return new Metadata(null, null, notModified ? Map.of(CATALOG_HASH, hash, NOT_MODIFIED, true) : Map.of(CATALOG_HASH, hash));
+    }
+
+    private Map<String, JsonRpcMethod> methodsOfType(final JsonRpcRegistry registry, final String type, final Predicate<String> filter) {
+        return registry.methods().values().stream()
+                .filter(it -> type.equals(it.metadata().getOrDefault("mcp.type", "")) && filter.test(it.name()))
+                .collect(toMap(JsonRpcMethod::name, identity()));
+    }
+
+    private record Resources(Catalog<ListResourcesResponse.Resource> catalog, Map<String, MCPResourceProvider> providers,
+                             Catalog<ListResourceTemplatesResponse.ResourceTemplate> templateCatalog,
+                             UriTemplateRouter<MCPResourceProvider> router) {
+    }
+
+    // everything derived from the catalog, swapped at once on reload so readers never see a partially built state
+    private record Snapshot(
+            InitializeResponse initializeResponse,
+            Catalog<ListToolsResponse.Tool> toolCatalog,
+            ListToolsResponse tools,
+            ListToolsResponse toolsNotModified,
+            Catalog<ListPromptsResponse.Prompt> promptCatalog,
+            ListPromptsResponse prompts,
+            ListPromptsResponse promptsNotModified,
+            Resources resources,
+            Map<String, JsonRpcMethod> toolMethods,
+            Map<String, JsonRpcMethod> promptMethods,
+            Set<String> structuredOnlyTools,
+            Set<String> virtualThreadTools,
+            Map<String, ConcurrencyLimiter> limiters,
+            Map<String, SchemaValidator> validators,
+            List<Object> serialized) {
     }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.http.server.api.Request;
+import io.yupiik.fusion.mcp.model.ProgressNotification;
+
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// notifications/progress reporter of a tools/call sent with a _meta.progressToken,
+// reports are coalesced: only the latest value of an interval is sent on the session stream so it can be called in loops
+public class MCPProgress {
+    private static final MCPProgress NOOP = new MCPProgress(null, null, null, 0);
+
+    private final Object token;
+    private final MCPSession session;
+    private final SseEncoder encoder;
+    private final long interval;
+    private double progress;
+    private double total = Double.NaN;
+    private String message;
+    private boolean dirty;
+    private boolean scheduled;
+    private boolean closed;
+    private long lastSent;
+
+    MCPProgress(final Object token, final MCPSession session, final SseEncoder encoder, final long interval) {
+        this.token = token;
+        this.session = session;
+        this.encoder = encoder;
+        this.interval = MILLISECONDS.toNanos(interval);
+        this.closed = session == null;
+        this.lastSent = System.nanoTime() - this.interval;
+    }
+
+    public void report(final double progress) {
+        report(progress, Double.NaN, null);
+    }
+
+    // total is NaN when unknown
+    public void report(final double progress, final double total, final String message) {
+        final long delay;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            this.progress = progress;
+            this.total = total;
+            this.message = message;
+            this.dirty = true;
+            if (scheduled) { // pending flush will send this value
+                return;
+            }
+            scheduled = true;
+            delay = lastSent + interval - System.nanoTime();
+        }
+        if (delay <= 0) {
+            flush();
+        } else {
+            delayedExecutor(delay, NANOSECONDS).execute(this::flush);
+        }
+    }
+
+    // sends the pending value if any and ignores next reports, the last progress is sent before the tool response
+    synchronized void close() {
+        flush();
+        closed = true;
+    }
+
+    // published under the lock: a delayed flush can't send an older value after a newer one
+    // nor be still in flight when close() returns (and the tool response is sent)
+    private synchronized void flush() {
+        scheduled = false;
+        if (!dirty || closed) {
+            return;
+        }
+        dirty = false;
+        lastSent = System.nanoTime();
+        session.publish(encoder, "notifications/progress", new ProgressNotification(token, progress, Double.isNaN(total) ? null : total, message));
+    }
+
+    public static class Accessor {
+        private Accessor() {
+            // no-op
+        }
+
+        // never null, reports are ignored when the client did not request progress notifications
+        public static MCPProgress get(final Request request) {
+            final var progress = request.attribute(MCPProgress.class.getName(), MCPProgress.class);
+            return progress == null ? NOOP : progress;
+        }
+
+        static void bind(final Request request, final MCPProgress progress) {
+            request.setAttribute(MCPProgress.class.getName(), progress);
+        }
+    }
+}
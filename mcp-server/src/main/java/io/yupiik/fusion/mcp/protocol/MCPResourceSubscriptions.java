@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
+import io.yupiik.fusion.framework.build.api.lifecycle.Destroy;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+// resources/subscribe index (uri -> sessions and session -> uris for the cleanup), updates are debounced:
+// a burst of changes of a uri sends a single notifications/resources/updated, encoded once for all its subscribers
+@ApplicationScoped
+public class MCPResourceSubscriptions {
+    private final Map<String, Set<MCPSession>> byUri = new ConcurrentHashMap<>();
+    private final Map<MCPSession, Set<String>> bySession = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final SseEncoder encoder;
+    private final long debounce;
+
+    // file backed resources, guarded by this
+    private final Map<Path, FileWatch> files = new HashMap<>();
+    private final Map<Path, WatchKey> directories = new HashMap<>();
+    private WatchService watchService;
+    private Thread watcher;
+
+    // for subclassing proxies
+    protected MCPResourceSubscriptions() {
+        encoder = null;
+        debounce = 0;
+    }
+
+    public MCPResourceSubscriptions(final SseEncoder encoder, final MCPServerConfiguration configuration) {
+        this.encoder = encoder;
+        this.debounce = Math.max(0, configuration.resources().updateDebounce());
+    }
+
+    @Destroy
+    protected synchronized void destroy() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (final IOException e) {
+                // no-op
+            }
+            watcher.interrupt();
+            watchService = null;
+        }
+    }
+
+    // to call when the content of a resource changed, ignored if nobody subscribed to it
+    public void updated(final String uri) {
+        if (!byUri.containsKey(uri) || !dirty.add(uri)) {
+            return;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            delayedExecutor(debounce, MILLISECONDS).execute(this::flush);
+        }
+    }
+
+    public int subscribers(final String uri) {
+        final var sessions = byUri.get(uri);
+        return sessions == null ? 0 : sessions.size();
+    }
+
+    // file is the local file backing the resource if any, it is watched while the uri has subscribers.
+    // the byUri entry is the lock of a uri: both indices are updated and the watch is decided under it,
+    // the filesystem calls happen once it is released (watch/unwatch check byUri again so they can run in any order)
+    void subscribe(final MCPSession session, final String uri, final Path file) {
+        final var first = new AtomicBoolean();
+        byUri.compute(uri, (k, sessions) -> {
+            final var value = sessions == null ? ConcurrentHashMap.<MCPSession>newKeySet() : sessions;
+            if (value.add(session)) {
+                bySession.compute(session, (s, uris) -> {
+                    final var sessionUris = uris == null ? ConcurrentHashMap.<String>newKeySet() : uris;
+                    sessionUris.add(uri);
+                    return sessionUris;
+                });
+            }
+            first.set(sessions == null);
+            return value;
+        });
+        if (first.get() && file != null) {
+            watch(file.toAbsolutePath().normalize(), uri);
+        }
+    }
+
+    void unsubscribe(final MCPSession session, final String uri) {
+        final var last = new AtomicBoolean();
+        byUri.computeIfPresent(uri, (k, sessions) -> removeSubscriber(sessions, session, uri, last));
+        if (last.get()) {
+            unwatch(uri);
+        }
+    }
+
+    // closed or evicted session
+    void remove(final MCPSession session) {
+        final var uris = bySession.remove(session);
+        if (uris != null) {
+            final var last = new AtomicBoolean();
+            for (final var uri : uris) {
+                last.set(false);
+                byUri.computeIfPresent(uri, (k, sessions) -> removeSubscriber(sessions, session, uri, last));
+                if (last.get()) {
+                    unwatch(uri);
+                }
+            }
+        }
+    }
+
+    synchronized int watchedFiles() {
+        return files.size();
+    }
+
+    // called under the uri lock, returns the remaining subscribers or null (and flags last) if it was the last one
+    private Set<MCPSession> removeSubscriber(final Set<MCPSession> sessions, final MCPSession session, final String uri,
+                                             final AtomicBoolean last) {
+        if (!sessions.remove(session)) {
+            return sessions;
+        }
+        bySession.computeIfPresent(session, (s, uris) -> {
+            uris.remove(uri);
+            return uris.isEmpty() ? null : uris;
+        });
+        if (!sessions.isEmpty()) {
+            return sessions;
+        }
+        dirty.remove(uri);
+        last.set(true);
+        return null;
+    }
+
+    private void flush() {
+        scheduled.set(false);
+        for (final var it = dirty.iterator(); it.hasNext(); ) {
+            final var uri = it.next();
+            it.remove();
+
+            final var sessions = byUri.get(uri);
+            if (sessions == null || sessions.isEmpty()) {
+                continue;
+            }
+            final var frame = encoder.encodeNotification(null, "notifications/resources/updated", Map.of("uri", uri));
+            int sent = 0;
+            for (final var session : sessions) {
+                if (session.push(frame)) {
+                    sent++;
+                }
+            }
+            final int count = sent;
+            Logger.getLogger(getClass().getName()).finest(() -> "Sent update of '" + uri + "' to " + count + " streams");
+        }
+    }
+
+    private synchronized void watch(final Path file, final String uri) {
+        if (!byUri.containsKey(uri)) { // unsubscribed before we got the monitor, its unwatch() had nothing to cancel
+            return;
+        }
+
+        final var existing = files.get(file);
+        if (existing != null) {
+            existing.uris().add(uri);
+            return;
+        }
+
+        final var directory = file.getParent();
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                watcher = Thread.ofPlatform().daemon().name("fusion-mcp-resource-watcher").start(this::watchLoop);
+            }
+            if (!directories.containsKey(directory)) {
+                directories.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE));
+            }
+            final var uris = ConcurrentHashMap.<String>newKeySet();
+            uris.add(uri);
+            files.put(file, new FileWatch(directory, uris));
+        } catch (final IOException ioe) {
+            Logger.getLogger(getClass().getName()).log(Level.WARNING, ioe, () -> "Can't watch '" + file + "', updates of '" + uri + "' will not be detected");
+        }
+    }
+
+    private synchronized void unwatch(final String uri) {
+        if (byUri.containsKey(uri)) { // subscribed again before we got the monitor, the watch is still needed
+            return;
+        }
+
+        for (final var it = files.entrySet().iterator(); it.hasNext(); ) {
+            final var watch = it.next().getValue();
+            if (watch.uris().remove(uri) && watch.uris().isEmpty()) {
+                it.remove();
+                if (files.values().stream().noneMatch(other -> other.directory().equals(watch.directory()))) {
+                    final var key = directories.remove(watch.directory());
+                    if (key != null) {
+                        key.cancel();
+                    }
+                }
+            }
+        }
+    }
+
+    private void watchLoop() {
+        final WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        while (!Thread.currentThread().isInterrupted()) {
+            final WatchKey key;
+            try {
+                key = service.take();
+            } catch (final InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            final var directory = (Path) key.watchable();
+            for (final var event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) { // lost events, consider all files of the directory changed
+                    uris(directory, null).forEach(this::updated);
+                } else if (event.context() instanceof Path name) {
+                    uris(directory, directory.resolve(name)).forEach(this::updated);
+                }
+            }
+            key.reset();
+        }
+    }
+
+    private synchronized Set<String> uris(final Path directory, final Path file) {
+        if (file != null) {
+            final var watch = files.get(file);
+            return watch == null ? Set.of() : Set.copyOf(watch.uris());
+        }
+        final var uris = new HashSet<String>();
+        files.values().stream().filter(it -> it.directory().equals(directory)).forEach(it -> uris.addAll(it.uris()));
+        return uris;
+    }
+
+    private record FileWatch(Path directory, Set<String> uris) {
+    }
+}
@@ -19,6 +19,7 @@ import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
 import io.yupiik.fusion.framework.build.api.http.HttpMatcher;
 import io.yupiik.fusion.http.server.api.Request;
 import io.yupiik.fusion.http.server.api.Response;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.concurrent.CompletionStage;
@@ -27,14 +28,35 @@ import static java.util.concurrent.CompletableFuture.completedFuture;
 
 @ApplicationScoped
 public class MCPSSEProtocol {
+    private final MCPServerConfiguration configuration;
+    private final MCPSessionRegistry sessions;
+
+    // for subclassing proxies
+    protected MCPSSEProtocol() {
+        configuration = null;
+        sessions = null;
+    }
+
+    public MCPSSEProtocol(final MCPServerConfiguration configuration, final MCPSessionRegistry sessions) {
+        this.configuration = configuration;
+        this.sessions = sessions;
+    }
+
     @HttpMatcher(methods = "GET", path = "/mcp")
     public CompletionStage<Response> sse(final Request request) {
-        final var session  = MCPSession.Accessor.get(request);
+        final var sessionId = request.header(MCPHttpTransport.SESSION_HEADER);
+        if (sessionId == null) {
+            return completedFuture(Response.of().status(400).build());
+        }
+        final var session = sessions.find(sessionId);
+        if (session == null) {
+            return completedFuture(Response.of().status(404).build());
+        }
         request.unwrap(HttpServletRequest.class).getAsyncContext().setTimeout(Long.MAX_VALUE);
         return completedFuture(Response.of()
                 .status(200)
                 .header("content-type", "text/event-stream")
-                .body(session.newSse())
+                .body(session.newSse(configuration.sse(), request.header("last-event-id")))
                 .build());
     }
 }
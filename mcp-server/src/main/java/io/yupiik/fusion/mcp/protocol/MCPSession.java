@@ -15,34 +15,191 @@
  */
 package io.yupiik.fusion.mcp.protocol;
 
-import io.yupiik.fusion.mcp.model.LoggingLevel;
 import io.yupiik.fusion.http.server.api.Request;
-import jakarta.servlet.http.HttpServletRequest;
-
-import java.io.Serializable;
+import io.yupiik.fusion.mcp.backplane.MCPBackplane;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import io.yupiik.fusion.mcp.model.LoggingLevel;
 
-import static java.util.Optional.ofNullable;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
 
-public class MCPSession implements Serializable {
-    private LoggingLevel loggingLevel = LoggingLevel.info;
+public class MCPSession {
+    private final Lock lock = new ReentrantLock();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final String id;
+    private final ReplayBuffer replay;
+    private final MCPBackplane backplane;
+    private final Map<String, MCPCancellation> inFlight = new ConcurrentHashMap<>();
+    private volatile long lastAccess = System.nanoTime();
+    private volatile LoggingLevel loggingLevel = LoggingLevel.info;
+    private boolean connected;
 
-    // todo: ensure there is some session affinity otherwise this will fail
+    // stream can be on another node, events are then routed through the backplane
     private volatile SseBus sse;
 
+    public MCPSession(final String id, final MCPServerConfiguration.SseConfiguration configuration, final MCPBackplane backplane) {
+        this.id = id;
+        this.replay = new ReplayBuffer(configuration.replaySize(), configuration.replayMaxAge());
+        this.backplane = backplane;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+    public long lastAccess() {
+        return lastAccess;
+    }
+
+    // an open SSE stream keeps the session alive even without any request
+    public boolean isStreaming() {
+        final var bus = sse;
+        return bus != null && bus.isSubscribed();
+    }
+
     public void setLoggingLevel(final LoggingLevel loggingLevel) {
         this.loggingLevel = loggingLevel;
+        if (backplane != null) {
+            backplane.save(state());
+        }
+    }
+
+    public MCPBackplane.SessionState state() {
+        return new MCPBackplane.SessionState(id, loggingLevel);
+    }
+
+    // replica update from another node
+    void onState(final MCPBackplane.SessionState state) {
+        this.loggingLevel = state.loggingLevel();
     }
 
     public LoggingLevel getLoggingLevel() {
         return loggingLevel;
     }
 
-    // todo: add a session listener to auto disconnect
-    public SseBus newSse() {
-        if (sse != null) {
-            sse.cancel();
+    public SseBus newSse(final MCPServerConfiguration.SseConfiguration configuration) {
+        return newSse(configuration, null);
+    }
+
+    // lastEventId is the Last-Event-ID header value of a reconnection, events sent after it are replayed
+    public SseBus newSse(final MCPServerConfiguration.SseConfiguration configuration, final String lastEventId) {
+        final var bus = new SseBus(configuration);
+        lock.lock();
+        try {
+            if (sse != null) {
+                sse.cancel();
+            }
+
+            final long lastId = parseEventId(lastEventId);
+            if (lastId >= 0 || !connected) { // first connection gets what was published before it
+                if (!replay.replay(Math.max(0, lastId), bus::publish)) {
+                    Logger.getLogger(getClass().getName()).warning(() -> "Some events after '" + lastEventId + "' were evicted, client missed them");
+                }
+            }
+            connected = true;
+            return sse = bus;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // publishes a server to client JSON-RPC notification, it is kept in the replay window even if no client is connected
+    public long publish(final SseEncoder encoder, final String method, final Object params) {
+        final long eventId;
+        final SseFrame frame;
+        final boolean delivered;
+        lock.lock(); // id allocation, replay window and stream see the events in the same order
+        try {
+            // ids are time based to stay (roughly) ordered when several nodes publish for the same session
+            eventId = eventIds.updateAndGet(previous -> Math.max(previous + 1, System.currentTimeMillis() * 1_000));
+            frame = encoder.encodeNotification(Long.toString(eventId), method, params);
+            delivered = onEvent(eventId, frame);
+        } finally {
+            lock.unlock();
+        }
+        if (!delivered && backplane != null) {
+            backplane.publish(id, eventId, frame.content());
+        }
+        return eventId;
+    }
+
+    // returns true if the frame was handed to a stream connected to this node
+    boolean deliver(final long eventId, final SseFrame frame) {
+        lock.lock();
+        try {
+            eventIds.accumulateAndGet(eventId, Math::max);
+            return onEvent(eventId, frame);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // under lock, a bus not yet subscribed (between newSse() and the HTTP subscription) buffers the frame until there is some demand
+    private boolean onEvent(final long eventId, final SseFrame frame) {
+        replay.add(eventId, frame);
+        final var bus = sse;
+        if (bus == null) {
+            return false;
+        }
+        bus.publish(frame);
+        return bus.isSubscribed();
+    }
+
+    // shared frame (no event id, not replayed) for idempotent notifications sent to the connected stream only
+    boolean push(final SseFrame frame) {
+        final var bus = sse;
+        return bus != null && bus.isSubscribed() && bus.publish(frame);
+    }
+
+    void register(final MCPCancellation cancellation) {
+        inFlight.put(cancellation.requestId(), cancellation);
+    }
+
+    void unregister(final MCPCancellation cancellation) {
+        inFlight.remove(cancellation.requestId(), cancellation);
+    }
+
+    // cancels the in-flight tool call matching this JSON-RPC request id (if still running on this node)
+    public boolean cancel(final String requestId, final String reason) {
+        final var cancellation = inFlight.remove(requestId);
+        return cancellation != null && cancellation.cancel(reason);
+    }
+
+    public void close() {
+        for (final var cancellation : inFlight.values()) {
+            cancellation.cancel("session closed");
+        }
+        inFlight.clear();
+        lock.lock();
+        try {
+            if (sse != null) {
+                sse.cancel();
+                sse = null;
+            }
+            replay.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long parseEventId(final String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.strip());
+        } catch (final NumberFormatException nfe) {
+            return -1;
         }
-        return sse = new SseBus();
     }
 
     public SseBus sse() {
@@ -54,18 +211,17 @@ public class MCPSession implements Serializable {
             // no-op
         }
 
+        // the HTTP transport binds the session matching the Mcp-Session-Id header to the request
         public static MCPSession get(final Request request) {
-            return ofNullable(request.unwrap(HttpServletRequest.class).getSession(false))
-                    .map(s -> s.getAttribute(MCPSession.class.getName()))
-                    .map(MCPSession.class::cast)
-                    .orElseThrow(() -> new IllegalStateException("No session"));
+            return find(request).orElseThrow(() -> new IllegalStateException("No session"));
+        }
+
+        public static Optional<MCPSession> find(final Request request) {
+            return Optional.ofNullable(request.attribute(MCPSession.class.getName(), MCPSession.class));
         }
 
-        public static void create(final Request request) {
-            request
-                    .unwrap(HttpServletRequest.class)
-                    .getSession(true)
-                    .setAttribute(MCPSession.class.getName(), MCPSession.class);
+        static void bind(final Request request, final MCPSession session) {
+            request.setAttribute(MCPSession.class.getName(), session);
         }
     }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
+import io.yupiik.fusion.framework.build.api.lifecycle.Destroy;
+import io.yupiik.fusion.framework.build.api.lifecycle.Init;
+import io.yupiik.fusion.mcp.backplane.MCPBackplane;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.SEVERE;
+
+// sessions are keyed by the Mcp-Session-Id header, idle ones are evicted by a hashed timer wheel,
+// local ones are replicas of the backplane states so any node can serve any session
+@ApplicationScoped
+public class MCPSessionRegistry implements MCPBackplane.Listener {
+    private static final int WHEEL_SIZE = 512;
+
+    private final Map<String, MCPSession> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final MCPServerConfiguration configuration;
+    private final MCPBackplane backplane;
+    private final MCPResourceSubscriptions subscriptions;
+    private final Queue<MCPSession>[] wheel;
+    private final long tick;
+    private final long idleTimeout;
+    private ScheduledExecutorService timer;
+    private long currentTick;
+
+    // for subclassing proxies
+    protected MCPSessionRegistry() {
+        configuration = null;
+        backplane = null;
+        subscriptions = null;
+        wheel = null;
+        tick = 0;
+        idleTimeout = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public MCPSessionRegistry(final MCPServerConfiguration configuration, final List<MCPBackplane> backplanes,
+                              final MCPResourceSubscriptions subscriptions) {
+        this.configuration = configuration;
+        this.subscriptions = subscriptions;
+        this.backplane = backplanes.stream()
+                .filter(it -> configuration.backplane().type().equals(it.name()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No backplane '" + configuration.backplane().type() + "', available: " +
+                        backplanes.stream().map(MCPBackplane::name).toList()));
+        this.tick = TimeUnit.MILLISECONDS.toNanos(Math.max(1, configuration.session().evictionTick()));
+        this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(configuration.session().idleTimeout());
+        this.wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @Init
+    protected void init() {
+        backplane.start(this);
+        currentTick = System.nanoTime() / tick;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            final var thread = new Thread(r, "fusion-mcp-session-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long tickMs = TimeUnit.NANOSECONDS.toMillis(tick);
+        timer.scheduleAtFixedRate(this::onTick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Destroy
+    protected void destroy() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        sessions.values().forEach(MCPSession::close);
+        sessions.clear();
+        backplane.close();
+    }
+
+    public MCPSession create() {
+        MCPSession session;
+        do {
+            session = new MCPSession(newId(), configuration.sse(), backplane);
+        } while (sessions.putIfAbsent(session.id(), session) != null);
+        backplane.save(session.state());
+        schedule(session);
+        return session;
+    }
+
+    public MCPSession find(final String id) {
+        if (id == null) {
+            return null;
+        }
+        var session = sessions.get(id);
+        if (session == null) { // created (or evicted) on another node
+            final var state = backplane.load(id);
+            if (state == null) {
+                return null;
+            }
+            final var replica = new MCPSession(id, configuration.sse(), backplane);
+            replica.onState(state);
+            session = sessions.putIfAbsent(id, replica);
+            if (session == null) {
+                session = replica;
+                schedule(session);
+            }
+        }
+        session.touch();
+        return session;
+    }
+
+    // frame is encoded once and shared by all the local streams, returns the number of streams it was handed to
+    public int broadcast(final SseFrame frame) {
+        int delivered = 0;
+        for (final var session : sessions.values()) {
+            if (session.push(frame)) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    public boolean remove(final String id) {
+        final boolean known = evict(id) | backplane.load(id) != null;
+        backplane.remove(id);
+        return known;
+    }
+
+    @Override
+    public void onSave(final MCPBackplane.SessionState state) {
+        final var session = sessions.get(state.id());
+        if (session != null) {
+            session.onState(state);
+        }
+    }
+
+    @Override
+    public void onRemove(final String id) {
+        evict(id);
+    }
+
+    @Override
+    public void onEvent(final String sessionId, final long eventId, final ByteBuffer frame) {
+        final var session = sessions.get(sessionId);
+        if (session != null) {
+            session.deliver(eventId, SseFrame.of(frame));
+        }
+    }
+
+    // local only, the session can still be alive on other nodes
+    private boolean evict(final String id) {
+        final var session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        subscriptions.remove(session);
+        session.close();
+        return true;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private String newId() {
+        final var bytes = new byte[16];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // touching a session does not move it in the wheel, it is re-scheduled lazily when its slot expires
+    private void schedule(final MCPSession session) {
+        final long deadlineTick = (session.lastAccess() + idleTimeout) / tick;
+        wheel[(int) (Math.floorMod(deadlineTick, (long) WHEEL_SIZE))].add(session);
+    }
+
+    private void onTick() {
+        try {
+            final long now = System.nanoTime();
+            final long targetTick = now / tick;
+            while (currentTick <= targetTick) {
+                final var bucket = wheel[(int) Math.floorMod(currentTick, (long) WHEEL_SIZE)];
+                for (int i = bucket.size(); i > 0; i--) { // only what was there when we started, rescheduled ones can come back
+                    final var session = bucket.poll();
+                    if (session == null) {
+                        break;
+                    }
+                    if (sessions.get(session.id()) != session) { // already removed
+                        continue;
+                    }
+                    if (session.isStreaming()) {
+                        session.touch();
+                    } else if (now - session.lastAccess() >= idleTimeout) {
+                        evict(session.id());
+                        continue;
+                    }
+                    backplane.save(session.state()); // still alive, refresh it for other nodes
+                    schedule(session);
+                }
+                currentTick++;
+            }
+        } catch (final RuntimeException re) {
+            Logger.getLogger(getClass().getName()).log(SEVERE, re, re::getMessage);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.http.server.api.Request;
+import io.yupiik.fusion.json.JsonMapper;
+import io.yupiik.fusion.jsonrpc.impl.JsonRpcMethod;
+import io.yupiik.fusion.mcp.api.MCPResourceProvider;
+import io.yupiik.fusion.mcp.model.BinaryResource;
+import io.yupiik.fusion.mcp.model.ListResourceTemplatesResponse;
+import io.yupiik.fusion.mcp.model.ListResourcesResponse;
+import io.yupiik.fusion.mcp.model.ReadResourceResponse;
+import io.yupiik.fusion.mcp.model.Resource;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+// @MCPResource JSON-RPC method seen as a provider of a single resource or resource template
+class MethodResourceProvider implements MCPResourceProvider {
+    private final JsonRpcMethod method;
+    private final String mimeType;
+    private final List<ListResourcesResponse.Resource> resources;
+    private final List<ListResourceTemplatesResponse.ResourceTemplate> templates;
+    private final JsonMapper jsons;
+
+    MethodResourceProvider(final JsonRpcMethod method, final String uri, final String uriTemplate, final JsonMapper jsons) {
+        this.method = method;
+        this.jsons = jsons;
+
+        final var metadata = method.metadata();
+        this.mimeType = metadata.get("mcp.resource.mimeType");
+        this.resources = uri == null ? List.of() : List.of(new ListResourcesResponse.Resource(
+                null, null, metadata.get("mcp.resource.description"), mimeType, method.name(), metadata.get("mcp.resource.title"),
+                uri, null));
+        this.templates = uriTemplate == null ? List.of() : List.of(new ListResourceTemplatesResponse.ResourceTemplate(
+                null, null, metadata.get("mcp.resource.description"), mimeType, method.name(), metadata.get("mcp.resource.title"),
+                uriTemplate));
+    }
+
+    @Override
+    public List<ListResourcesResponse.Resource> resources() {
+        return resources;
+    }
+
+    @Override
+    public List<ListResourceTemplatesResponse.ResourceTemplate> templates() {
+        return templates;
+    }
+
+    @Override
+    public CompletionStage<?> read(final String uri, final Request request) {
+        return read(uri, Map.of(), request);
+    }
+
+    @Override
+    public CompletionStage<?> read(final String uri, final Map<String, String> variables, final Request request) {
+        final Map<String, Object> params;
+        if (variables.isEmpty()) {
+            params = Map.of("uri", uri);
+        } else {
+            params = new HashMap<>(variables);
+            params.put("uri", uri);
+        }
+        return method.invoke(new JsonRpcMethod.Context(request, params)).thenApply(result -> switch (result) {
+            case ReadResourceResponse response -> response;
+            case BinaryResource binary -> binary;
+            case Path file -> BinaryResource.blob(null, uri, mimeType == null ? "application/octet-stream" : mimeType, file); // memory mapped when written
+            case Resource content -> new ReadResourceResponse(null, List.of(content));
+            case null -> new ReadResourceResponse(null, List.of());
+            case CharSequence text -> new ReadResourceResponse(null, List.of(Resource.text(null, uri, mimeType, text.toString())));
+            default -> new ReadResourceResponse(null, List.of(Resource.text(
+                    null, uri, mimeType == null ? "application/json" : mimeType, jsons.toString(result))));
+        });
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// bounded (count and age) window of the last sent events to support Last-Event-ID reconnections, not thread safe
+final class ReplayBuffer {
+    private final long[] ids;
+    private final long[] timestamps;
+    private final SseFrame[] frames;
+    private final long maxAge;
+    private int head; // oldest
+    private int size;
+
+    ReplayBuffer(final int capacity, final long maxAge) {
+        this.ids = new long[Math.max(0, capacity)];
+        this.timestamps = new long[ids.length];
+        this.frames = new SseFrame[ids.length];
+        this.maxAge = TimeUnit.MILLISECONDS.toNanos(maxAge);
+    }
+
+    void add(final long id, final SseFrame frame) {
+        if (frames.length == 0) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        evictExpired(now);
+        if (size == frames.length) {
+            evictOldest();
+        }
+
+        final int index = (head + size) % frames.length;
+        ids[index] = id;
+        timestamps[index] = now;
+        frames[index] = frame;
+        size++;
+    }
+
+    // returns false if some events after lastId were already evicted (the client missed some of them)
+    boolean replay(final long lastId, final Consumer<SseFrame> consumer) {
+        evictExpired(System.nanoTime());
+
+        final boolean complete = size == 0 || ids[head] <= lastId + 1;
+        for (int i = 0; i < size; i++) {
+            final int index = (head + i) % frames.length;
+            if (ids[index] > lastId) {
+                consumer.accept(frames[index]);
+            }
+        }
+        return complete;
+    }
+
+    void clear() {
+        while (size > 0) {
+            evictOldest();
+        }
+    }
+
+    private void evictExpired(final long now) {
+        while (size > 0 && now - timestamps[head] > maxAge) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        frames[head] = null;
+        head = (head + 1) % frames.length;
+        size--;
+    }
+}
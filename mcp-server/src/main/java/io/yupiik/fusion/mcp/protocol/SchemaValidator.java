@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.mcp.model.JsonSchema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static java.util.stream.Collectors.toMap;
+
+// validator tree compiled once from a tool input schema, validation only does instanceof checks and map lookups
+abstract class SchemaValidator {
+    private static final int MAX_ERRORS = 16;
+
+    // returns the errors, empty when the value is valid
+    List<String> validate(final Object value) {
+        final var errors = new ArrayList<String>(2);
+        validate(value, "", errors);
+        return errors;
+    }
+
+    abstract void validate(Object value, String path, List<String> errors);
+
+    // tool is only used to log the ignored keywords
+    static SchemaValidator compile(final String tool, final JsonSchema schema) {
+        return new Compiler(tool, schema == null ? null : schema.definitions()).compile(schema, "");
+    }
+
+    private static void error(final List<String> errors, final String path, final String message) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add((path.isEmpty() ? "/" : path) + ": " + message);
+        }
+    }
+
+    private static final class Compiler {
+        private final String tool;
+        private final Map<String, JsonSchema> definitions;
+        private final Map<String, Reference> references = new HashMap<>();
+
+        private Compiler(final String tool, final Map<String, JsonSchema> definitions) {
+            this.tool = tool;
+            this.definitions = definitions == null ? Map.of() : definitions;
+        }
+
+        // path is the location of the schema in the input schema, only used to log ignored keywords
+        private SchemaValidator compile(final JsonSchema schema, final String path) {
+            if (schema == null) {
+                return Any.INSTANCE;
+            }
+            if (schema.ref() != null) {
+                return reference(schema.ref());
+            }
+
+            final var type = schema.type() == null ? null : switch (schema.type()) {
+                case "string" -> Type.STRING;
+                case "integer" -> Type.INTEGER;
+                case "number" -> Type.NUMBER;
+                case "boolean" -> Type.BOOLEAN;
+                case "object" -> Type.OBJECT;
+                case "array" -> Type.ARRAY;
+                case "null" -> Type.NULL;
+                default -> null; // unknown, don't be stricter than the tool itself
+            };
+            final var properties = schema.properties() == null ? Map.<String, SchemaValidator>of() : schema.properties().entrySet().stream()
+                    .collect(toMap(Map.Entry::getKey, it -> compile(it.getValue(), path + "/properties/" + it.getKey())));
+            return new Node(
+                    type, !Boolean.FALSE.equals(schema.nullable()),
+                    schema.enumeration() == null ? null : Set.copyOf(schema.enumeration()),
+                    schema.pattern() == null ? null : pattern(schema.pattern(), path),
+                    properties,
+                    schema.required() == null ? List.of() : List.copyOf(schema.required()),
+                    Boolean.FALSE.equals(schema.additionalProperties()),
+                    schema.additionalProperties() instanceof JsonSchema additional ? compile(additional, path + "/additionalProperties") : null,
+                    schema.items() == null ? null : compile(schema.items(), path + "/items"));
+        }
+
+        // JSON schema patterns are ECMA 262 ones, the few constructs java does not support must not break the whole catalog
+        private Pattern pattern(final String pattern, final String path) {
+            try {
+                return Pattern.compile(pattern);
+            } catch (final PatternSyntaxException pse) {
+                Logger.getLogger(SchemaValidator.class.getName()).warning(() -> "Ignoring pattern '" + pattern + "' of tool '" + tool + "' " +
+                        "input schema at '" + (path.isEmpty() ? "/" : path) + "': " + pse.getDescription());
+                return null;
+            }
+        }
+
+        // lazy to support recursive definitions
+        private SchemaValidator reference(final String ref) {
+            final var existing = references.get(ref);
+            if (existing != null) {
+                return existing;
+            }
+            final var reference = new Reference();
+            references.put(ref, reference);
+            final var definition = ref.startsWith("#/$defs/") ? definitions.get(ref.substring("#/$defs/".length())) : null;
+            reference.delegate = compile(definition, ref.startsWith("#") ? ref.substring(1) : ref);
+            return reference;
+        }
+    }
+
+    private enum Type {
+        STRING, INTEGER, NUMBER, BOOLEAN, OBJECT, ARRAY, NULL;
+
+        private boolean accepts(final Object value) {
+            return switch (this) {
+                case STRING -> value instanceof CharSequence;
+                case INTEGER -> value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte ||
+                        value instanceof BigInteger ||
+                        (value instanceof BigDecimal decimal && decimal.stripTrailingZeros().scale() <= 0) ||
+                        (value instanceof Number number && number.doubleValue() == Math.rint(number.doubleValue()));
+                case NUMBER -> value instanceof Number;
+                case BOOLEAN -> value instanceof Boolean;
+                case OBJECT -> value instanceof Map<?, ?>;
+                case ARRAY -> value instanceof Collection<?> || (value != null && value.getClass().isArray());
+                case NULL -> value == null;
+            };
+        }
+    }
+
+    private static final class Any extends SchemaValidator {
+        private static final Any INSTANCE = new Any();
+
+        @Override
+        void validate(final Object value, final String path, final List<String> errors) {
+            // no-op
+        }
+    }
+
+    private static final class Reference extends SchemaValidator {
+        private SchemaValidator delegate;
+
+        @Override
+        void validate(final Object value, final String path, final List<String> errors) {
+            delegate.validate(value, path, errors);
+        }
+    }
+
+    private static final class Node extends SchemaValidator {
+        private final Type type;
+        private final boolean nullable;
+        private final Set<String> enumeration;
+        private final Pattern pattern;
+        private final Map<String, SchemaValidator> properties;
+        private final List<String> required;
+        private final boolean closed;
+        private final SchemaValidator additionalProperties;
+        private final SchemaValidator items;
+
+        private Node(final Type type, final boolean nullable, final Set<String> enumeration, final Pattern pattern,
+                     final Map<String, SchemaValidator> properties, final List<String> required,
+                     final boolean closed, final SchemaValidator additionalProperties, final SchemaValidator items) {
+            this.type = type;
+            this.nullable = nullable;
+            this.enumeration = enumeration;
+            this.pattern = pattern;
+            this.properties = properties;
+            this.required = required;
+            this.closed = closed;
+            this.additionalProperties = additionalProperties;
+            this.items = items;
+        }
+
+        @Override
+        void validate(final Object value, final String path, final List<String> errors) {
+            if (value == null) {
+                if (!nullable && type != Type.NULL) {
+                    error(errors, path, "null is not allowed");
+                }
+                return;
+            }
+            if (type != null && !type.accepts(value)) {
+                error(errors, path, "expected " + type.name().toLowerCase(Locale.ROOT) + " but got " + value.getClass().getSimpleName());
+                return;
+            }
+            if (enumeration != null && !enumeration.contains(String.valueOf(value))) {
+                error(errors, path, "'" + value + "' is not one of " + enumeration);
+            }
+            if (pattern != null && value instanceof CharSequence string && !pattern.matcher(string).find()) {
+                error(errors, path, "'" + value + "' does not match '" + pattern.pattern() + "'");
+            }
+            if (value instanceof Map<?, ?> object) {
+                validateObject(object, path, errors);
+            } else if (items != null && value instanceof Collection<?> array) {
+                int index = 0;
+                for (final var item : array) {
+                    items.validate(item, path + '/' + index++, errors);
+                }
+            }
+        }
+
+        private void validateObject(final Map<?, ?> object, final String path, final List<String> errors) {
+            for (final var name : required) {
+                if (!object.containsKey(name)) {
+                    error(errors, path + '/' + name, "missing required property");
+                }
+            }
+            if (properties.isEmpty() && !closed && additionalProperties == null) {
+                return;
+            }
+            for (final var entry : object.entrySet()) {
+                final var name = String.valueOf(entry.getKey());
+                final var property = properties.get(name);
+                if (property != null) {
+                    property.validate(entry.getValue(), path + '/' + name, errors);
+                } else if (closed) {
+                    error(errors, path + '/' + name, "unknown property");
+                } else if (additionalProperties != null) {
+                    additionalProperties.validate(entry.getValue(), path + '/' + name, errors);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// immutable results (catalogs) serialized once, the response writer splices them in the JSON-RPC envelope,
+// lookups are by identity and lock free, writes are rare (catalog changes) so the map is copied on write
+@ApplicationScoped
+public class SerializedResults {
+    private volatile Map<Object, String> results = new IdentityHashMap<>();
+
+    public synchronized void put(final Object result, final String json) {
+        final var copy = new IdentityHashMap<>(results);
+        copy.put(result, json);
+        results = copy;
+    }
+
+    public synchronized void remove(final Object result) {
+        if (!results.containsKey(result)) {
+            return;
+        }
+        final var copy = new IdentityHashMap<>(results);
+        copy.remove(result);
+        results = copy;
+    }
+
+    public String get(final Object result) {
+        return result == null ? null : results.get(result);
+    }
+}
@@ -15,95 +15,279 @@
  */
 package io.yupiik.fusion.mcp.protocol;
 
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.util.Deque;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import static java.util.logging.Level.SEVERE;
+import static java.util.logging.Level.WARNING;
 
-// todo: enhance 1. the api 2. the thread safety and reactivity
 public class SseBus implements Flow.Publisher<ByteBuffer> {
     private final Lock lock = new ReentrantLock();
-    private final AtomicLong pending = new AtomicLong();
-    private final Deque<String> messages = new ConcurrentLinkedDeque<>();
-    private Flow.Subscriber<? super ByteBuffer> sse;
+    private final AtomicInteger wip = new AtomicInteger();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder totalLatency = new LongAdder();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private final MCPServerConfiguration.SseConfiguration configuration;
+    private final RingBuffer<Frame> frames;
+    private volatile Downstream sse;
+
+    public SseBus() {
+        this(MCPServerConfiguration.SseConfiguration.DEFAULT);
+    }
+
+    public SseBus(final MCPServerConfiguration.SseConfiguration configuration) {
+        this.configuration = configuration;
+        this.frames = new RingBuffer<>(configuration.capacity());
+    }
 
-    public void publish(final String line) {
-        messages.add(line);
+    public boolean publish(final String message) {
+        return enqueue(SseFrame.of(message));
+    }
+
+    // frame must be already encoded and not modified after this call, returns false if dropped
+    public boolean publish(final ByteBuffer frame) {
+        return enqueue(SseFrame.of(frame));
+    }
+
+    // frames are immutable so the same one can be published in several buses
+    public boolean publish(final SseFrame frame) {
+        return enqueue(frame);
+    }
+
+    private boolean enqueue(final SseFrame frame) {
+        final var item = new Frame(frame, System.nanoTime());
+        if (!frames.offer(item) && !onOverflow(item)) {
+            onDrop(item);
+            return false;
+        }
+        published.increment();
+        drain();
+        return true;
+    }
+
+    public Metrics metrics() {
+        final long deliveredCount = delivered.sum();
+        return new Metrics(
+                frames.size(), frames.capacity(),
+                published.sum(), deliveredCount, dropped.sum(),
+                deliveredCount == 0 ? 0 : totalLatency.sum() / deliveredCount, maxLatency.get());
+    }
+
+    public boolean isSubscribed() {
+        return sse != null;
     }
 
     public void cancel() {
-        if (sse != null) {
-            sse.onComplete();
+        final var ref = sse;
+        if (ref != null) {
+            detach(ref);
         }
     }
 
     @Override
     public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        final var downstream = new Downstream(subscriber);
         lock.lock();
         try {
             if (sse != null) {
                 try {
-                    sse.onComplete();
+                    sse.subscriber.onComplete();
                 } catch (final RuntimeException re) {
                     Logger.getLogger(getClass().getName()).log(SEVERE, re, re::getMessage);
                 }
             }
-            sse = subscriber;
+            sse = downstream;
         } finally {
             lock.unlock();
         }
-        subscriber.onSubscribe(new Flow.Subscription() {
-            @Override
-            public void request(final long n) {
-                try {
-                    pending.addAndGet(n);
-                    while (!messages.isEmpty() && pending.updateAndGet(p -> {
-                        if (p == Long.MAX_VALUE) {
-                            return 1;
-                        }
-                        if (p > 0) {
-                            return p - 1;
-                        }
-                        return -1;
-                    }) >= 0) {
-                        final var m = messages.pollFirst();
-                        if (m != null) { // todo: poolg
-                            subscriber.onNext(ByteBuffer.wrap(m.getBytes(StandardCharsets.UTF_8)));
-                        } else { // missed
-                            pending.incrementAndGet();
+        subscriber.onSubscribe(downstream);
+    }
+
+    // trampoline: whoever (publisher or requester) enters first drains for everybody, others just signal they missed a pass
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            final var downstream = sse;
+            if (downstream != null) {
+                final long requested = downstream.demand.get();
+                long emitted = 0;
+                while (emitted != requested && sse == downstream) {
+                    final var frame = frames.poll();
+                    if (frame == null) {
+                        break;
+                    }
+                    onDelivery(frame);
+                    try {
+                        downstream.subscriber.onNext(frame.payload().content());
+                    } catch (final RuntimeException re) {
+                        Logger.getLogger(getClass().getName()).log(SEVERE, re, re::getMessage);
+                        if (detach(downstream, false)) {
+                            downstream.subscriber.onError(re);
                         }
+                        break;
                     }
-                } catch (final RuntimeException re) {
-                    Logger.getLogger(getClass().getName()).log(SEVERE, re, re::getMessage);
-                    subscriber.onError(re);
+                    emitted++;
+                }
+                if (emitted > 0 && requested != Long.MAX_VALUE) { // demand of this subscription only, a new one starts from 0
+                    downstream.demand.addAndGet(-emitted);
                 }
             }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
 
-            @Override
-            public void cancel() {
-                lock.lock();
-                try {
-                    final var ref = sse;
-                    if (ref != null) {
-                        sse = null;
-                        try {
-                            ref.onComplete();
-                        } catch (final RuntimeException re) {
-                            Logger.getLogger(getClass().getName()).log(SEVERE, re, re::getMessage);
-                        }
+    private void onDelivery(final Frame frame) {
+        final long latency = System.nanoTime() - frame.enqueuedAt();
+        delivered.increment();
+        totalLatency.add(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+    }
+
+    private void onDrop(final Frame frame) {
+        dropped.increment();
+    }
+
+    private boolean onOverflow(final Frame item) {
+        switch (configuration.overflowPolicy()) {
+            case DROP_OLDEST -> {
+                do {
+                    final var oldest = frames.poll();
+                    if (oldest != null) {
+                        onDrop(oldest);
+                    }
+                } while (!frames.offer(item));
+                return true;
+            }
+            case BLOCK -> {
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(configuration.blockTimeout());
+                while (!frames.offer(item)) {
+                    if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+                        return false;
                     }
-                } finally {
-                    lock.unlock();
+                    LockSupport.parkNanos(100_000);
                 }
+                return true;
             }
-        });
+            case DISCONNECT -> {
+                final var downstream = sse;
+                if (downstream != null && detach(downstream)) {
+                    Logger.getLogger(getClass().getName()).log(WARNING, () -> "SSE client too slow, disconnecting it (" + frames.size() + " pending frames)");
+                }
+                Frame frame;
+                while ((frame = frames.poll()) != null) {
+                    onDrop(frame);
+                }
+                return false;
+            }
+            default -> throw new IllegalArgumentException("Unsupported policy: " + configuration.overflowPolicy());
+        }
     }
-}
 
+    private boolean detach(final Downstream downstream) {
+        return detach(downstream, true);
+    }
+
+    private boolean detach(final Downstream downstream, final boolean complete) {
+        lock.lock();
+        try {
+            if (sse != downstream) {
+                return false;
+            }
+            sse = null;
+        } finally {
+            lock.unlock();
+        }
+        if (!complete) {
+            return true;
+        }
+        try {
+            downstream.subscriber.onComplete();
+        } catch (final RuntimeException re) {
+            Logger.getLogger(getClass().getName()).log(SEVERE, re, re::getMessage);
+        }
+        return true;
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Drops the oldest queued frames to make room for the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Blocks the producer until there is some room or the block timeout is reached (then the new frame is dropped).
+         */
+        BLOCK,
+
+        /**
+         * Disconnects the client which will have to reconnect, pending frames are dropped.
+         */
+        DISCONNECT
+    }
+
+    /**
+     * Snapshot of the bus counters, latencies are in nanoseconds and measured between publication and the hand off to the subscriber.
+     */
+    public record Metrics(
+            int depth,
+            int capacity,
+            long published,
+            long delivered,
+            long dropped,
+            long averageDeliveryLatency,
+            long maxDeliveryLatency
+    ) {
+    }
+
+    private record Frame(SseFrame payload, long enqueuedAt) {
+    }
+
+    // demand belongs to a subscription: a late request() of a replaced or cancelled one must not feed the current one
+    private final class Downstream implements Flow.Subscription {
+        private final AtomicLong demand = new AtomicLong();
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+
+        private Downstream(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) { // reactive streams §3.9
+                if (detach(this, false)) {
+                    subscriber.onError(new IllegalArgumentException("Invalid demand: " + n));
+                }
+                return;
+            }
+            if (sse != this) {
+                return;
+            }
+            demand.getAndUpdate(current -> {
+                final long next = current + n;
+                return next < 0 ? Long.MAX_VALUE : next;
+            });
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            detach(this);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
+import io.yupiik.fusion.json.JsonMapper;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+// writes SSE frames (id/event/data lines + blank line) directly as UTF-8 in the buffer sent to the clients
+@ApplicationScoped
+public class SseEncoder {
+    private final JsonMapper jsons;
+    private final int bufferSize;
+
+    // for subclassing proxies
+    protected SseEncoder() {
+        jsons = null;
+        bufferSize = 0;
+    }
+
+    public SseEncoder(final JsonMapper jsons, final MCPServerConfiguration configuration) {
+        this.jsons = jsons;
+        this.bufferSize = Math.max(16, configuration.sse().bufferSize());
+    }
+
+    public SseFrame encode(final String id, final String event, final CharSequence data) {
+        final var writer = start(id, event);
+        writer.append(data);
+        return writer.finish();
+    }
+
+    // serializes the payload (JSON-RPC message) without going through an intermediate string
+    public SseFrame encodeJson(final String id, final String event, final Object payload) {
+        final var writer = start(id, event);
+        jsons.write(payload, writer);
+        return writer.finish();
+    }
+
+    public SseFrame encodeNotification(final String id, final String method, final Object params) {
+        final var writer = start(id, "message");
+        writer.append("{\"jsonrpc\":\"2.0\",\"method\":");
+        jsons.write(method, writer);
+        if (params != null) {
+            writer.append(",\"params\":");
+            jsons.write(params, writer);
+        }
+        writer.write('}');
+        return writer.finish();
+    }
+
+    private FrameWriter start(final String id, final String event) {
+        final var writer = new FrameWriter(bufferSize);
+        if (id != null) {
+            writer.field("id: ", id);
+        }
+        if (event != null) {
+            writer.field("event: ", event);
+        }
+        writer.ascii("data: ");
+        writer.data = true;
+        return writer;
+    }
+
+    private static final class FrameWriter extends Writer {
+        private ByteBuffer buffer;
+        private boolean data;
+        private boolean lastWasCr;
+        private char highSurrogate;
+
+        private FrameWriter(final int bufferSize) {
+            this.buffer = ByteBuffer.allocate(bufferSize);
+        }
+
+        @Override
+        public void write(final int c) {
+            onChar((char) c);
+        }
+
+        @Override
+        public void write(final char[] chars, final int off, final int len) {
+            for (int i = off; i < off + len; i++) {
+                onChar(chars[i]);
+            }
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) {
+            for (int i = off; i < off + len; i++) {
+                onChar(str.charAt(i));
+            }
+        }
+
+        @Override
+        public Writer append(final CharSequence csq) {
+            if (csq instanceof String s) {
+                write(s, 0, s.length());
+            } else {
+                for (int i = 0; i < csq.length(); i++) {
+                    onChar(csq.charAt(i));
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public void flush() {
+            // no-op
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+
+        private void field(final String prefix, final String value) {
+            ascii(prefix);
+            // a field value can't contain a line break, ensure we don't break the framing
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                onChar(c == '\n' || c == '\r' ? ' ' : c);
+            }
+            ascii("\n");
+        }
+
+        private void ascii(final String value) {
+            ensure(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+        }
+
+        private void onChar(final char c) {
+            if (data && (c == '\n' || c == '\r')) { // each line is a data field
+                if (c == '\n' && lastWasCr) {
+                    lastWasCr = false;
+                    return;
+                }
+                lastWasCr = c == '\r';
+                ascii("\ndata: ");
+                return;
+            }
+            lastWasCr = false;
+
+            if (highSurrogate != 0) {
+                final char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    final int codePoint = Character.toCodePoint(high, c);
+                    ensure(4);
+                    buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                    return;
+                }
+                ensure(1);
+                buffer.put((byte) '?');
+            }
+
+            if (c < 0x80) {
+                ensure(1);
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) { // lone low surrogate
+                ensure(1);
+                buffer.put((byte) '?');
+            } else {
+                ensure(3);
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+
+        private void ensure(final int bytes) {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+
+            final var bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            bigger.put(buffer.flip());
+            buffer = bigger;
+        }
+
+        private SseFrame finish() {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                ensure(1);
+                buffer.put((byte) '?');
+            }
+            data = false;
+            ascii("\n\n");
+            return new SseFrame(buffer.flip());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// encoded SSE frame, immutable so it is shared as is between buses (fan-out), the replay window and the subscribers,
+// it is not pooled since subscribers can write it after onNext returned and nothing signals when the write completed
+public final class SseFrame {
+    private final ByteBuffer buffer;
+
+    SseFrame(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public static SseFrame of(final ByteBuffer buffer) {
+        return new SseFrame(buffer);
+    }
+
+    public static SseFrame of(final String raw) {
+        return of(ByteBuffer.wrap(raw.getBytes(UTF_8)));
+    }
+
+    public int size() {
+        return buffer.remaining();
+    }
+
+    // read only view with its own position so each consumer reads the whole frame
+    public ByteBuffer content() {
+        return buffer.asReadOnlyBuffer();
+    }
+}
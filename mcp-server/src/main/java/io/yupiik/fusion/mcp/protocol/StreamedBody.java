@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+// emits a sequence of static chunks and upstream publishers (mapped item per item) as a single body,
+// upstream items are requested one at a time so at most one encoded item is buffered
+class StreamedBody implements Flow.Publisher<ByteBuffer> {
+    private final Queue<Object> segments; // ByteBuffer or Source
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    StreamedBody(final Queue<Object> segments) {
+        this.segments = segments;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) {
+                    // no-op
+                }
+
+                @Override
+                public void cancel() {
+                    // no-op
+                }
+            });
+            subscriber.onError(new IllegalStateException("Body already subscribed"));
+            return;
+        }
+        final var subscription = new BodySubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    private class BodySubscription implements Flow.Subscription {
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicReference<ByteBuffer> item = new AtomicReference<>();
+        private final Flow.Subscriber<? super ByteBuffer> downstream;
+        private volatile Upstream upstream;
+        private volatile Throwable error;
+        private volatile boolean done;
+
+        private BodySubscription(final Flow.Subscriber<? super ByteBuffer> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Invalid demand: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+            final var current = upstream;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!done) {
+                    if (error != null) {
+                        cancel();
+                        downstream.onError(error);
+                        return;
+                    }
+
+                    final var next = item.get();
+                    if (next != null) {
+                        if (demand.get() == 0) {
+                            break;
+                        }
+                        item.set(null);
+                        demand.decrementAndGet();
+                        downstream.onNext(next);
+                        final var current = upstream;
+                        if (current != null) {
+                            current.next();
+                        }
+                        continue;
+                    }
+
+                    if (upstream != null) { // waiting for the upstream publisher
+                        break;
+                    }
+
+                    final var segment = segments.poll();
+                    if (segment == null) {
+                        done = true;
+                        downstream.onComplete();
+                        return;
+                    }
+                    if (segment instanceof ByteBuffer chunk) {
+                        item.set(chunk);
+                    } else {
+                        final var source = (Source) segment;
+                        final var current = new Upstream(source.encoder());
+                        upstream = current;
+                        source.publisher().subscribe(current);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private class Upstream implements Flow.Subscriber<Object> {
+            private final BiFunction<Object, Boolean, ByteBuffer> encoder;
+            private volatile Flow.Subscription subscription;
+            private volatile boolean cancelled;
+            private boolean first = true;
+
+            private Upstream(final BiFunction<Object, Boolean, ByteBuffer> encoder) {
+                this.encoder = encoder;
+            }
+
+            private void next() {
+                final var current = subscription;
+                if (current != null) {
+                    current.request(1);
+                }
+            }
+
+            private void cancel() {
+                cancelled = true;
+                final var current = subscription;
+                if (current != null) {
+                    current.cancel();
+                }
+            }
+
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                this.subscription = subscription;
+                if (cancelled) {
+                    subscription.cancel();
+                } else {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onNext(final Object value) {
+                try {
+                    item.set(encoder.apply(value, first));
+                    first = false;
+                } catch (final RuntimeException re) {
+                    cancel();
+                    error = re;
+                }
+                drain();
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                // headers are already sent so the only option is to abort the body
+                error = throwable;
+                drain();
+            }
+
+            @Override
+            public void onComplete() {
+                upstream = null;
+                drain();
+            }
+        }
+    }
+
+    // encoder is (item, first) -> chunk
+    record Source(Flow.Publisher<?> publisher, BiFunction<Object, Boolean, ByteBuffer> encoder) {
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// RFC 6570 level 1 and 2 templates ({var}, {+var}, {#var}) compiled in a trie shared by all templates:
+// matching walks the uri once (literal edges first), a variable stops at the first position its suffix matches.
+// edges only depend on the template shape (variable names are kept per template) so equivalent templates conflict,
+// failed (node, position) states are never explored twice and a step budget bounds pathological uris
+class UriTemplateRouter<T> {
+    private final Node<T> root = new Node<>(0);
+    private int nodes = 1;
+
+    void add(final String template, final T value) {
+        var node = root;
+        final var names = new ArrayList<String>(2);
+        int i = 0;
+        while (i < template.length()) {
+            final char c = template.charAt(i);
+            if (c != '{') {
+                node = node.literal(c, this);
+                i++;
+                continue;
+            }
+
+            final int end = template.indexOf('}', i);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed expression in '" + template + "'");
+            }
+            var name = template.substring(i + 1, end);
+            boolean reserved = false;
+            if (name.startsWith("#")) { // fragment expansion is a reserved one prefixed with '#'
+                node = node.literal('#', this);
+                name = name.substring(1);
+                reserved = true;
+            } else if (name.startsWith("+")) {
+                name = name.substring(1);
+                reserved = true;
+            }
+            if (name.isEmpty() || name.indexOf(',') >= 0 || !Character.isLetterOrDigit(name.charAt(0)) && name.charAt(0) != '_') {
+                throw new IllegalArgumentException("Unsupported expression '{" + template.substring(i + 1, end) + "}' in '" + template + "', only level 1 and 2 templates are supported");
+            }
+            names.add(name);
+            node = node.variable(reserved, this);
+            i = end + 1;
+        }
+        if (node.value != null) {
+            throw new IllegalArgumentException("Template '" + template + "' conflicts with '" + node.template + "'");
+        }
+        node.value = value;
+        node.template = template;
+        node.names = List.copyOf(names);
+    }
+
+    Match<T> match(final String uri) {
+        final var state = new MatchState(uri);
+        final var node = match(root, 0, state);
+        if (node == null) {
+            return null;
+        }
+        final var variables = new LinkedHashMap<String, String>(node.names.size());
+        for (int i = 0; i < node.names.size(); i++) {
+            final var capture = state.captures.get(i);
+            variables.put(node.names.get(i), decode(uri.substring(capture[0], capture[1])));
+        }
+        return new Match<>(node.template, node.value, variables);
+    }
+
+    private Node<T> match(final Node<T> node, final int position, final MatchState state) {
+        final var uri = state.uri;
+        if (position == uri.length() && node.value != null) {
+            return node;
+        }
+        final long key = (long) node.id << 32 | position;
+        if (state.failed.contains(key) || ++state.steps > state.maxSteps) {
+            return null;
+        }
+        if (position < uri.length()) {
+            final var literal = node.literals.get(uri.charAt(position));
+            if (literal != null) {
+                final var found = match(literal, position + 1, state);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        for (final var variable : node.variables) {
+            final var next = variable.next;
+            for (int end = position + 1; end <= uri.length(); end++) { // lazy so a literal after the variable wins (more specific template)
+                if (!variable.reserved && !isUnreserved(uri.charAt(end - 1))) {
+                    break;
+                }
+                if (++state.steps > state.maxSteps) {
+                    return null;
+                }
+                if (end < uri.length() ? // only recurse where the next node can continue
+                        next.variables.isEmpty() && !next.literals.containsKey(uri.charAt(end)) :
+                        next.value == null) {
+                    continue;
+                }
+                state.captures.add(new int[]{position, end});
+                final var found = match(next, end, state);
+                if (found != null) {
+                    return found;
+                }
+                state.captures.removeLast();
+            }
+        }
+        state.failed.add(key);
+        return null;
+    }
+
+    private static boolean isUnreserved(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+                c == '-' || c == '.' || c == '_' || c == '~' || c == '%';
+    }
+
+    private static String decode(final String value) {
+        return value.indexOf('%') < 0 ? value : URLDecoder.decode(value.replace("+", "%2B"), UTF_8);
+    }
+
+    record Match<T>(String template, T value, Map<String, String> variables) {
+    }
+
+    private static final class MatchState {
+        private final String uri;
+        private final long maxSteps;
+        private final List<int[]> captures = new ArrayList<>(4);
+        private final Set<Long> failed = new HashSet<>();
+        private long steps;
+
+        private MatchState(final String uri) {
+            this.uri = uri;
+            this.maxSteps = 1024 + 64L * uri.length(); // legit uris need a few steps per character, an unmatched pathological one is just not found
+        }
+    }
+
+    private static final class Node<T> {
+        private final int id;
+        private final Map<Character, Node<T>> literals = new HashMap<>();
+        private final List<Variable<T>> variables = new ArrayList<>(1);
+        private T value;
+        private String template;
+        private List<String> names;
+
+        private Node(final int id) {
+            this.id = id;
+        }
+
+        private Node<T> literal(final char c, final UriTemplateRouter<T> router) {
+            return literals.computeIfAbsent(c, k -> new Node<>(router.nodes++));
+        }
+
+        private Node<T> variable(final boolean reserved, final UriTemplateRouter<T> router) {
+            for (final var variable : variables) {
+                if (variable.reserved == reserved) {
+                    return variable.next;
+                }
+            }
+            final var variable = new Variable<>(reserved, new Node<T>(router.nodes++));
+            // simple variables are more specific than reserved ones so they are tried first
+            if (reserved) {
+                variables.add(variable);
+            } else {
+                variables.add(0, variable);
+            }
+            return variable.next;
+        }
+    }
+
+    private record Variable<T>(boolean reserved, Node<T> next) {
+    }
+}
@@ -17,18 +17,28 @@ package io.yupiik.fusion.mcp.service;
 
 import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
 import io.yupiik.fusion.json.JsonMapper;
+import io.yupiik.fusion.jsonrpc.impl.JsonRpcMethod;
+import io.yupiik.fusion.mcp.model.JsonSchema;
+import io.yupiik.fusion.mcp.model.ListPromptsResponse;
+import io.yupiik.fusion.mcp.model.ListToolsResponse;
+import io.yupiik.fusion.mcp.model.fusion.MCPCatalog;
 import io.yupiik.fusion.mcp.model.fusion.OpenRpc;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Base64;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
-import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toMap;
 
 @ApplicationScoped
@@ -44,97 +54,150 @@ public class OpenRpcService {
     }
 
     public OpenRpc load() {
-        try (final var in = new InputStreamReader(requireNonNull(Thread.currentThread().getContextClassLoader()
-                .getResourceAsStream("META-INF/fusion/jsonrpc/openrpc.json")), UTF_8)) {
+        try (final var in = new InputStreamReader(openRpcStream(), UTF_8)) {
             return jsons.read(OpenRpc.class, in);
         } catch (final IOException e) {
             throw new IllegalStateException(e);
         }
     }
 
-    public Map<String, OpenRpc.JsonSchema> resolveSchemas(final OpenRpc openRpc) {
-        // remove $ref for MCP - this could be optimized a bit but ok-ish
-        final var resolvedSchemas = openRpc
-                .schemas()
-                .entrySet().stream()
-                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
-        final var noMoreRef = new HashSet<String>();
-        boolean redo = true;
-        while (redo) {
-            redo = false;
-            for (final var schema : resolvedSchemas.entrySet()) {
-                if (noMoreRef.contains(schema.getKey())) {
-                    continue;
-                }
+    // hashing the raw document is way cheaper than parsing and converting it
+    public String openRpcHash() {
+        try (final var in = openRpcStream()) {
+            final var digest = MessageDigest.getInstance("SHA-256").digest(in.readAllBytes());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (final IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
-                final var replacement = resolveRefs(resolvedSchemas, schema.getValue());
-                if (replacement != null) {
-                    resolvedSchemas.put(schema.getKey(), replacement);
-                    redo = true;
-                } else {
-                    noMoreRef.add(schema.getKey());
-                }
-            }
+    // generated at build time by io.yupiik.fusion.mcp.build.MCPCatalogGenerator,
+    // empty if missing or computed from another openrpc.json (schemas changed since, missing plugin execution, ...)
+    public Optional<MCPCatalog> loadCatalog() {
+        final var stream = Thread.currentThread().getContextClassLoader().getResourceAsStream("META-INF/fusion/mcp/catalog.json");
+        if (stream == null) {
+            return Optional.empty();
         }
+        final MCPCatalog catalog;
+        try (final var in = new InputStreamReader(stream, UTF_8)) {
+            catalog = jsons.read(MCPCatalog.class, in);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!openRpcHash().equals(catalog.openRpcHash())) {
+            Logger.getLogger(getClass().getName()).warning("Build time MCP catalog does not match openrpc.json, ignoring it");
+            return Optional.empty();
+        }
+        return Optional.of(catalog);
+    }
 
-        return resolvedSchemas;
+    public MCPCatalog toCatalog(final OpenRpc openrpc,
+                                final Map<String, JsonRpcMethod> toolMethods,
+                                final Map<String, JsonRpcMethod> promptMethods) {
+        final var resolver = newResolver(openrpc.schemas());
+        final var converter = new SchemaConverter();
+        final var toolList = openrpc.methods().values().stream()
+                .filter(it -> toolMethods.containsKey(it.name()))
+                .map(it -> new ListToolsResponse.Tool(
+                        null,
+                        null,
+                        it.name(),
+                        it.name(),
+                        it.description(),
+                        withDefinitions(resolver, converter, new JsonSchema(
+                                it.params().isEmpty(),
+                                "Input request for " + it.name(),
+                                it.params().stream()
+                                        .collect(toMap(
+                                                OpenRpc.JsonRpcMethod.Parameter::name,
+                                                p -> converter.toMcp(resolver.resolve(p.schema())))),
+                                it.params().stream()
+                                        .filter(p -> p.required() != null && p.required())
+                                        .map(OpenRpc.JsonRpcMethod.Parameter::name)
+                                        .sorted()
+                                        .toList()
+                        )),
+                        toolMethods.get(it.name()).isNotification() || it.result() == null || it.result().schema() == null || "null".equals(it.result().schema().type()) ?
+                                null :
+                                toOutputSchema(resolver, converter, it.result().schema())))
+                .toList();
+        final var promptList = openrpc.methods().values().stream()
+                .filter(it -> promptMethods.containsKey(it.name()))
+                .map(it -> new ListPromptsResponse.Prompt(
+                        null,
+                        it.name(),
+                        it.name(),
+                        it.description(),
+                        // there params are only strings!
+                        it.params().stream()
+                                .map(p -> new ListPromptsResponse.Prompt.Argument(
+                                        p.name(), p.name(),
+                                        p.schema().description(),
+                                        p.schema().nullable() != null && !p.schema().nullable()
+                                ))
+                                .toList()))
+                .toList();
+
+        return new MCPCatalog(toolList, promptList, null);
     }
 
+    public Map<String, OpenRpc.JsonSchema> resolveSchemas(final OpenRpc openRpc) {
+        // remove $ref for MCP, recursive types keep a #/$defs/ reference
+        return newResolver(openRpc.schemas()).resolveAll();
+    }
+
+    // returns null if there is nothing to resolve
     public OpenRpc.JsonSchema resolveRefs(final Map<String, OpenRpc.JsonSchema> world, final OpenRpc.JsonSchema schema) {
-        if (schema == null) {
-            return null;
-        }
+        final var resolved = newResolver(world).resolve(schema);
+        return resolved == schema ? null : resolved;
+    }
 
-        final var ref = schema.ref();
-        if (ref != null && !Objects.equals(ref, schema.id())) {
-            final var jsonSchema = world.get(ref.startsWith("#/schemas/") ? ref.substring("#/schemas/".length()) : ref);
-            return ofNullable(resolveRefs(world, jsonSchema)).orElse(jsonSchema);
-        }
+    private InputStream openRpcStream() {
+        return requireNonNull(
+                Thread.currentThread().getContextClassLoader().getResourceAsStream("META-INF/fusion/jsonrpc/openrpc.json"),
+                "No META-INF/fusion/jsonrpc/openrpc.json found");
+    }
+
+    private SchemaResolver newResolver(final Map<String, OpenRpc.JsonSchema> world) {
+        return new SchemaResolver(world, SchemaConverter::fromMap);
+    }
+
+    // only models (references) are exposed as structured output
+    private JsonSchema toOutputSchema(final SchemaResolver resolver, final SchemaConverter converter, final OpenRpc.JsonSchema schema) {
+        final var resolved = resolver.resolve(schema);
+        return resolved == schema ? null : withDefinitions(resolver, converter, converter.toMcp(resolved));
+    }
 
-        if ("object".equals(schema.type()) && schema.properties() != null) {
-            // allocate only if one nested schema resolves
-            Map<String, OpenRpc.JsonSchema> newProperties = null;
-            for (final var prop : schema.properties().entrySet()) {
-                final var resolved = resolveRefs(world, prop.getValue());
-                if (resolved != null) {
-                    if (newProperties == null) {
-                        newProperties = new HashMap<>(schema.properties().size());
-                    }
-                    newProperties.put(prop.getKey(), resolved);
+    // recursive types are referenced as #/$defs/<name> so the definitions are added to the root schema
+    private JsonSchema withDefinitions(final SchemaResolver resolver, final SchemaConverter converter, final JsonSchema root) {
+        final var definitions = new TreeMap<String, JsonSchema>();
+        final var todo = new ArrayDeque<JsonSchema>();
+        todo.add(root);
+        while (!todo.isEmpty()) {
+            collectReferences(todo.poll(), name -> {
+                if (!definitions.containsKey(name)) {
+                    final var definition = converter.toMcp(resolver.named(name));
+                    definitions.put(name, definition);
+                    todo.add(definition);
                 }
-            }
-
-            // if we resolved at least one prop, ensure we do not miss any
-            if (newProperties != null && newProperties.size() != schema.properties().size()) {
-                final var npr = newProperties;
-                newProperties.putAll(schema.properties().entrySet().stream()
-                        .filter(it -> !npr.containsKey(it.getKey()))
-                        .collect(toMap(Map.Entry::getKey, Map.Entry::getValue)));
-            }
-
-            // handle additional props (for maps mainly)
-            Object additionalProps = schema.additionalProperties();
-            if (schema.additionalProperties() instanceof Map<?,?>) {
-                final var addPropSchema = jsons.fromString(OpenRpc.JsonSchema.class, jsons.toString(schema.additionalProperties()));
-                final var additionalPropsResolved = resolveRefs(world, addPropSchema);
-                additionalProps = additionalPropsResolved != null ? additionalPropsResolved : schema.additionalProperties();
-            }
-
-            if (newProperties != null || additionalProps != schema.additionalProperties()) {
-                return new OpenRpc.JsonSchema(
-                        null, null,
-                        schema.type(), schema.nullable(), schema.description(), schema.format(), schema.pattern(),
-                        newProperties == null ? schema.properties() : newProperties, additionalProps,
-                        schema.items(), schema.enumeration());
-            }
-        } else if ("array".equals(schema.type()) && schema.items() != null) {
-            final var newItems = resolveRefs(world, schema.items());
-            if (newItems != null) {
-                return new OpenRpc.JsonSchema(
-                        null, null, schema.type(), schema.nullable(), schema.description(), schema.format(), schema.pattern(),
-                        schema.properties(), schema.additionalProperties(), newItems, schema.enumeration());
-            }
+            });
+        }
+        return converter.intern(definitions.isEmpty() ? root : root.withDefinitions(definitions));
+    }
+
+    private void collectReferences(final JsonSchema schema, final Consumer<String> onReference) {
+        if (schema == null) {
+            return;
+        }
+        if (schema.ref() != null && schema.ref().startsWith(SchemaResolver.DEFS)) {
+            onReference.accept(schema.ref().substring(SchemaResolver.DEFS.length()));
+        }
+        if (schema.properties() != null) {
+            schema.properties().values().forEach(it -> collectReferences(it, onReference));
+        }
+        if (schema.additionalProperties() instanceof JsonSchema additional) {
+            collectReferences(additional, onReference);
         }
-        return null;
+        collectReferences(schema.items(), onReference);
     }
 }
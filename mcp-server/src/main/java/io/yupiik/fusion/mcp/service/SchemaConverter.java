@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.service;
+
+import io.yupiik.fusion.mcp.model.JsonSchema;
+import io.yupiik.fusion.mcp.model.fusion.OpenRpc;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toMap;
+
+// converts OpenRPC schemas to MCP ones, each source instance is converted once and
+// equal (sub)schemas are interned so the whole catalog shares a single instance per distinct schema
+class SchemaConverter {
+    private final Map<OpenRpc.JsonSchema, JsonSchema> converted = new IdentityHashMap<>();
+    private final Map<JsonSchema, JsonSchema> interned = new HashMap<>();
+
+    JsonSchema toMcp(final OpenRpc.JsonSchema schema) {
+        if (schema == null) {
+            return null;
+        }
+        final var existing = converted.get(schema);
+        if (existing != null) {
+            return existing;
+        }
+
+        final var mcp = intern(new JsonSchema(
+                schema.type(), schema.nullable(), null, schema.description(), schema.format(), schema.pattern(),
+                schema.properties() == null ? null : schema.properties().entrySet().stream()
+                        .collect(toMap(Map.Entry::getKey, it -> toMcp(it.getValue()))),
+                schema.additionalProperties() instanceof Map<?, ?> map ?
+                        toMcp(fromMap(map)) :
+                        schema.additionalProperties() instanceof OpenRpc.JsonSchema additional ?
+                                toMcp(additional) :
+                                schema.additionalProperties(),
+                toMcp(schema.items()), schema.enumeration(),
+                schema.properties() == null ?
+                        null :
+                        schema.properties()
+                                .entrySet().stream()
+                                .filter(it -> it.getValue().nullable() != null && !it.getValue().nullable())
+                                .map(Map.Entry::getKey)
+                                .toList(),
+                null,
+                schema.ref() != null && schema.ref().startsWith(SchemaResolver.DEFS) ? schema.ref() : null,
+                null));
+        converted.put(schema, mcp);
+        return mcp;
+    }
+
+    JsonSchema intern(final JsonSchema schema) {
+        final var existing = interned.putIfAbsent(schema, schema);
+        return existing == null ? schema : existing;
+    }
+
+    // generic (parsed JSON) form of a schema, additionalProperties uses it since it is an Object (boolean or schema)
+    static OpenRpc.JsonSchema fromMap(final Map<?, ?> map) {
+        return new OpenRpc.JsonSchema(
+                string(map.get("$ref")), string(map.get("$id")),
+                string(map.get("type")),
+                map.get("nullable") instanceof Boolean b ? b : null,
+                string(map.get("description")), string(map.get("format")), string(map.get("pattern")),
+                map.get("properties") instanceof Map<?, ?> properties ? properties(properties) : null,
+                map.get("additionalProperties"),
+                map.get("items") instanceof Map<?, ?> items ? fromMap(items) : null,
+                map.get("enum") instanceof List<?> values ? values.stream().map(String::valueOf).toList() : null);
+    }
+
+    private static Map<String, OpenRpc.JsonSchema> properties(final Map<?, ?> properties) {
+        final var out = new LinkedHashMap<String, OpenRpc.JsonSchema>(properties.size());
+        for (final var entry : properties.entrySet()) {
+            if (entry.getValue() instanceof Map<?, ?> value) {
+                out.put(String.valueOf(entry.getKey()), fromMap(value));
+            }
+        }
+        return out;
+    }
+
+    private static String string(final Object value) {
+        return value == null ? null : value.toString();
+    }
+}
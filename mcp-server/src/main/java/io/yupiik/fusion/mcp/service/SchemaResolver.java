@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.service;
+
+import io.yupiik.fusion.mcp.model.fusion.OpenRpc;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// resolves $ref in a single depth first pass: each named schema is resolved once (memoized, so it is a topological order)
+// and a reference to a schema being resolved (recursive type) is kept as a "#/$defs/<name>" reference
+class SchemaResolver {
+    static final String SCHEMAS = "#/schemas/";
+    static final String DEFS = "#/$defs/";
+
+    private final Map<String, OpenRpc.JsonSchema> world;
+    private final Function<Map<?, ?>, OpenRpc.JsonSchema> mapConverter;
+    private final Map<String, OpenRpc.JsonSchema> resolved = new HashMap<>();
+    private final Set<String> resolving = new HashSet<>();
+
+    SchemaResolver(final Map<String, OpenRpc.JsonSchema> world, final Function<Map<?, ?>, OpenRpc.JsonSchema> mapConverter) {
+        this.world = world;
+        this.mapConverter = mapConverter;
+    }
+
+    Map<String, OpenRpc.JsonSchema> resolveAll() {
+        final var all = new HashMap<String, OpenRpc.JsonSchema>(world.size());
+        for (final var name : world.keySet()) {
+            all.put(name, named(name));
+        }
+        return all;
+    }
+
+    OpenRpc.JsonSchema named(final String name) {
+        final var cached = resolved.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        if (!resolving.add(name)) { // cycle
+            return new OpenRpc.JsonSchema(DEFS + name, null, null, null, null, null, null, null, null, null, null);
+        }
+
+        final var schema = world.get(name);
+        try {
+            if (schema == null) {
+                return null;
+            }
+            final var result = resolve(schema);
+            resolved.put(name, result);
+            return result;
+        } finally {
+            resolving.remove(name);
+        }
+    }
+
+    // returns the same instance when there is nothing to resolve
+    OpenRpc.JsonSchema resolve(final OpenRpc.JsonSchema schema) {
+        if (schema == null) {
+            return null;
+        }
+
+        final var ref = schema.ref();
+        if (ref != null && !ref.equals(schema.id())) {
+            if (ref.startsWith(DEFS)) {
+                return schema;
+            }
+            final var target = named(ref.startsWith(SCHEMAS) ? ref.substring(SCHEMAS.length()) : ref);
+            return target == null ? schema : target;
+        }
+
+        if ("object".equals(schema.type()) && schema.properties() != null) {
+            // allocate only if one nested schema resolves
+            Map<String, OpenRpc.JsonSchema> newProperties = null;
+            for (final var prop : schema.properties().entrySet()) {
+                final var value = resolve(prop.getValue());
+                if (value != prop.getValue() && newProperties == null) {
+                    newProperties = new HashMap<>(schema.properties());
+                }
+                if (newProperties != null) {
+                    newProperties.put(prop.getKey(), value);
+                }
+            }
+
+            // handle additional props (for maps mainly)
+            Object additionalProps = schema.additionalProperties();
+            if (additionalProps instanceof Map<?, ?> map) {
+                final var addPropSchema = mapConverter.apply(map);
+                final var additionalPropsResolved = resolve(addPropSchema);
+                if (additionalPropsResolved != addPropSchema) {
+                    additionalProps = additionalPropsResolved;
+                }
+            } else if (additionalProps instanceof OpenRpc.JsonSchema nested) {
+                additionalProps = resolve(nested);
+            }
+
+            if (newProperties != null || additionalProps != schema.additionalProperties()) {
+                return new OpenRpc.JsonSchema(
+                        null, null,
+                        schema.type(), schema.nullable(), schema.description(), schema.format(), schema.pattern(),
+                        newProperties == null ? schema.properties() : newProperties, additionalProps,
+                        schema.items(), schema.enumeration());
+            }
+        } else if ("array".equals(schema.type()) && schema.items() != null) {
+            final var newItems = resolve(schema.items());
+            if (newItems != schema.items()) {
+                return new OpenRpc.JsonSchema(
+                        null, null, schema.type(), schema.nullable(), schema.description(), schema.format(), schema.pattern(),
+                        schema.properties(), schema.additionalProperties(), newItems, schema.enumeration());
+            }
+        }
+        return schema;
+    }
+}
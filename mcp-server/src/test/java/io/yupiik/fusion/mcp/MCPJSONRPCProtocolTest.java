@@ -15,6 +15,9 @@
  */
 package io.yupiik.fusion.mcp;
 
+import io.yupiik.fusion.json.JsonMapper;
+import io.yupiik.fusion.mcp.protocol.MCPJSONRPCProtocol;
+import io.yupiik.fusion.mcp.protocol.MCPSessionRegistry;
 import io.yupiik.fusion.testing.Fusion;
 import io.yupiik.fusion.testing.FusionSupport;
 import org.junit.jupiter.api.Test;
@@ -23,10 +26,18 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static io.yupiik.fusion.testing.assertion.JsonAsserts.assertJsonEquals;
+import static java.net.http.HttpResponse.BodyHandlers.ofLines;
 import static java.net.http.HttpResponse.BodyHandlers.ofString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @FusionSupport
 class MCPJSONRPCProtocolTest {
@@ -110,12 +121,21 @@ class MCPJSONRPCProtocolTest {
                 ofString());
 
         assertEquals(200, res.statusCode());
+        assertTrue(res.headers().firstValue("mcp-session-id").isPresent());
         assertJsonEquals("""
                         {                                                                                                                                                                                                                       \s
                             "jsonrpc": "2.0",                                                                                                                                                                                                                  \s
                             "id": 1,                                                                                                                                                                                                                           \s
                             "result": {                                                                                                                                                                                                                        \s
-                              "capabilities": {},                                                                                                                                                                                                              \s
+                              "capabilities": {
+                                "resources": {
+                                  "listChanged": true,
+                                  "subscribe": true
+                                },
+                                "tools": {
+                                  "listChanged": true
+                                }
+                              },
                               "instructions": "Use tool",                                                                                                                                                                                                      \s
                               "protocolVersion": "2025-06-18",                                                                                                                                                                                                 \s
                               "serverInfo": {                                                                                                                                                                                                                  \s
@@ -127,4 +147,231 @@ class MCPJSONRPCProtocolTest {
                         }""",
                 res.body());
     }
+
+    @Test
+    void sessionLifecycle(@Fusion final URI mcpEndpoint, @Fusion final HttpClient http) throws IOException, InterruptedException {
+        final var init = http.send(HttpRequest.newBuilder()
+                        .POST(HttpRequest.BodyPublishers.ofString("""
+                                {
+                                  "jsonrpc": "2.0",
+                                  "id": 1,
+                                  "method": "initialize",
+                                  "params": {
+                                    "protocolVersion": "2025-06-18",
+                                    "capabilities": {},
+                                    "clientInfo": {
+                                      "name": "ExampleClient",
+                                      "version": "1.0.0"
+                                    }
+                                  }
+                                }"""))
+                        .uri(mcpEndpoint)
+                        .header("accept", "application/json")
+                        .header("content-type", "application/json")
+                        .build(),
+                ofString());
+        final var session = init.headers().firstValue("mcp-session-id").orElseThrow();
+
+        final var initialized = http.send(HttpRequest.newBuilder()
+                        .POST(HttpRequest.BodyPublishers.ofString("""
+                                {
+                                  "jsonrpc": "2.0",
+                                  "method": "notifications/initialized"
+                                }"""))
+                        .uri(mcpEndpoint)
+                        .header("accept", "application/json")
+                        .header("content-type", "application/json")
+                        .header("mcp-session-id", session)
+                        .build(),
+                ofString());
+        assertEquals(202, initialized.statusCode());
+
+        final var delete = http.send(HttpRequest.newBuilder()
+                        .DELETE()
+                        .uri(mcpEndpoint)
+                        .header("mcp-session-id", session)
+                        .build(),
+                ofString());
+        assertEquals(204, delete.statusCode());
+
+        final var ping = http.send(HttpRequest.newBuilder()
+                        .POST(HttpRequest.BodyPublishers.ofString("""
+                                {
+                                  "jsonrpc": "2.0",
+                                  "id": 2,
+                                  "method": "ping"
+                                }"""))
+                        .uri(mcpEndpoint)
+                        .header("accept", "application/json")
+                        .header("content-type", "application/json")
+                        .header("mcp-session-id", session)
+                        .build(),
+                ofString());
+        assertEquals(404, ping.statusCode());
+    }
+
+    @Test
+    void reloadWithFilter(@Fusion final URI mcpEndpoint, @Fusion final HttpClient http, @Fusion final JsonMapper jsons,
+                          @Fusion final MCPJSONRPCProtocol protocol, @Fusion final MCPSessionRegistry sessions) throws Exception {
+        final var init = http.send(HttpRequest.newBuilder()
+                        .POST(HttpRequest.BodyPublishers.ofString("""
+                                {
+                                  "jsonrpc": "2.0",
+                                  "id": 1,
+                                  "method": "initialize",
+                                  "params": {
+                                    "protocolVersion": "2025-06-18",
+                                    "capabilities": {},
+                                    "clientInfo": {
+                                      "name": "ExampleClient",
+                                      "version": "1.0.0"
+                                    }
+                                  }
+                                }"""))
+                        .uri(mcpEndpoint)
+                        .header("accept", "application/json")
+                        .header("content-type", "application/json")
+                        .build(),
+                ofString());
+        final var session = init.headers().firstValue("mcp-session-id").orElseThrow();
+        assertEquals(List.of("test/echo", "test/fail", "test/thread", "test/void"), toolNames(mcpEndpoint, http, jsons));
+
+        final var stream = http.sendAsync(HttpRequest.newBuilder()
+                        .GET()
+                        .uri(mcpEndpoint)
+                        .header("accept", "text/event-stream")
+                        .header("mcp-session-id", session)
+                        .build(),
+                ofLines());
+        try {
+            // broadcasted notifications only reach connected streams
+            final long end = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+            while (System.nanoTime() < end) {
+                final var bus = sessions.find(session).sse();
+                if (bus != null && bus.isSubscribed()) {
+                    break;
+                }
+                Thread.sleep(10);
+            }
+
+            protocol.reload(name -> !"test/echo".equals(name));
+
+            assertEquals(List.of("test/fail", "test/thread", "test/void"), toolNames(mcpEndpoint, http, jsons));
+            final var notification = stream
+                    .thenApply(res -> res.body()
+                            .filter(it -> it.startsWith("data:"))
+                            .findFirst()
+                            .orElseThrow())
+                    .get(1, TimeUnit.MINUTES);
+            assertJsonEquals("""
+                            {
+                              "jsonrpc": "2.0",
+                              "method": "notifications/tools/list_changed"
+                            }""",
+                    notification.substring("data:".length()).strip());
+        } finally {
+            protocol.reload(name -> true);
+            stream.thenAccept(res -> res.body().close());
+        }
+        assertEquals(List.of("test/echo", "test/fail", "test/thread", "test/void"), toolNames(mcpEndpoint, http, jsons));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resources(@Fusion final URI mcpEndpoint, @Fusion final HttpClient http, @Fusion final JsonMapper jsons) throws IOException, InterruptedException {
+        // provider beans first then @MCPResource methods, a duplicated uri is only listed once
+        final var list = (Map<String, Object>) call(mcpEndpoint, http, jsons, "resources/list", "{}").get("result");
+        assertEquals(
+                List.of("test://provided", "test://duplicate", "test://readme"),
+                ((List<Map<String, Object>>) list.get("resources")).stream().map(it -> it.get("uri")).toList());
+        final var templates = (Map<String, Object>) call(mcpEndpoint, http, jsons, "resources/templates/list", "{}").get("result");
+        assertEquals(
+                List.of("test://files/{name}"),
+                ((List<Map<String, Object>>) templates.get("resourceTemplates")).stream().map(it -> it.get("uriTemplate")).toList());
+
+        assertEquals(
+                Map.of("uri", "test://readme", "mimeType", "text/plain", "text", "hello resources"),
+                readResource(mcpEndpoint, http, jsons, "test://readme"));
+        assertEquals(
+                Map.of("uri", "test://provided", "mimeType", "text/plain", "text", "from the provider"),
+                readResource(mcpEndpoint, http, jsons, "test://provided"));
+        assertEquals( // first provider wins
+                Map.of("uri", "test://duplicate", "mimeType", "text/plain", "text", "from the provider"),
+                readResource(mcpEndpoint, http, jsons, "test://duplicate"));
+        assertEquals( // Path results are streamed as a blob
+                Map.of("uri", "test://files/a.txt", "mimeType", "text/plain",
+                        "blob", Base64.getEncoder().encodeToString("content of a.txt".getBytes(UTF_8))),
+                readResource(mcpEndpoint, http, jsons, "test://files/a.txt"));
+
+        final var missing = (Map<String, Object>) call(mcpEndpoint, http, jsons, "resources/read", """
+                {"uri": "test://missing"}""").get("error");
+        assertEquals(-32002, ((Number) missing.get("code")).intValue());
+        assertEquals(Map.of("uri", "test://missing"), missing.get("data"));
+    }
+
+    @Test
+    void toolErrors(@Fusion final URI mcpEndpoint, @Fusion final HttpClient http, @Fusion final JsonMapper jsons) throws IOException, InterruptedException {
+        assertEquals(
+                Map.of("jsonrpc", "2.0", "id", 1, "error", Map.of("code", -32602, "message", "Unknown tool: 'test/missing'")),
+                normalize(call(mcpEndpoint, http, jsons, "tools/call", """
+                        {"name": "test/missing", "arguments": {}}""")));
+        assertEquals( // a void tool is a successful call without content
+                Map.of("jsonrpc", "2.0", "id", 1, "result", Map.of("content", List.of(), "isError", false)),
+                normalize(call(mcpEndpoint, http, jsons, "tools/call", """
+                        {"name": "test/void", "arguments": {}}""")));
+        assertEquals( // as if the tool was called directly
+                Map.of("jsonrpc", "2.0", "id", 1, "error", Map.of("code", -32603, "message", "test failure", "data", "test failure")),
+                normalize(call(mcpEndpoint, http, jsons, "tools/call", """
+                        {"name": "test/fail", "arguments": {}}""")));
+    }
+
+    // JSON numbers are read as BigDecimal
+    @SuppressWarnings("unchecked")
+    private Object normalize(final Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return map.entrySet().stream().collect(toMap(it -> (String) it.getKey(), it -> normalize(it.getValue())));
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(this::normalize).toList();
+        }
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readResource(final URI mcpEndpoint, final HttpClient http, final JsonMapper jsons,
+                                             final String uri) throws IOException, InterruptedException {
+        final var result = (Map<String, Object>) call(mcpEndpoint, http, jsons, "resources/read", jsons.toString(Map.of("uri", uri))).get("result");
+        final var contents = (List<Map<String, Object>>) result.get("contents");
+        assertEquals(1, contents.size());
+        return contents.getFirst();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> toolNames(final URI mcpEndpoint, final HttpClient http, final JsonMapper jsons) throws IOException, InterruptedException {
+        final var result = (Map<String, Object>) call(mcpEndpoint, http, jsons, "tools/list", "{}").get("result");
+        return ((List<Map<String, Object>>) result.get("tools")).stream().map(it -> (String) it.get("name")).sorted().toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> call(final URI mcpEndpoint, final HttpClient http, final JsonMapper jsons,
+                                     final String method, final String params) throws IOException, InterruptedException {
+        final var res = http.send(HttpRequest.newBuilder()
+                        .POST(HttpRequest.BodyPublishers.ofString("""
+                                {
+                                  "jsonrpc": "2.0",
+                                  "id": 1,
+                                  "method": "%s",
+                                  "params": %s
+                                }""".formatted(method, params)))
+                        .uri(mcpEndpoint)
+                        .header("accept", "application/json")
+                        .header("content-type", "application/json")
+                        .build(),
+                ofString());
+        assertEquals(200, res.statusCode());
+        return (Map<String, Object>) jsons.fromString(Object.class, res.body());
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.backplane;
+
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.yupiik.fusion.mcp.configuration.MCPServerConfiguration.DEFAULT;
+import static io.yupiik.fusion.mcp.test.TestConfigurations.with;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MulticastBackplaneTest {
+    @Test
+    void requiresSecret() {
+        try (final var backplane = backplane("")) {
+            assertThrows(IllegalStateException.class, () -> backplane.start(new Messages()));
+        }
+    }
+
+    @Test
+    void signedMessages() throws IOException {
+        final var sender = backplane("secret");
+        final var receiver = backplane("secret");
+        final var messages = new Messages();
+
+        receiver.onDatagram(messages, sender.message(MulticastBackplane.SAVE, "session", out -> out.writeUTF("debug")));
+        receiver.onDatagram(messages, sender.message(MulticastBackplane.EVENT, "session", out -> {
+            out.writeLong(1234);
+            out.writeInt(4);
+            out.write("test".getBytes(UTF_8));
+        }));
+        receiver.onDatagram(messages, sender.message(MulticastBackplane.REMOVE, "session", out -> {
+        }));
+
+        assertEquals(List.of("save:session:debug", "event:session:1234:test", "remove:session"), messages.received);
+        assertEquals(0, receiver.lostMessages());
+    }
+
+    @Test
+    void ignoreUnsignedMessages() throws IOException {
+        final var receiver = backplane("secret");
+        final var messages = new Messages();
+
+        // another secret
+        receiver.onDatagram(messages, backplane("other").message(MulticastBackplane.SAVE, "session", out -> out.writeUTF("debug")));
+
+        // tampered
+        final var tampered = backplane("secret").message(MulticastBackplane.SAVE, "session", out -> out.writeUTF("debug"));
+        tampered.put(tampered.limit() - 40, (byte) 'x');
+        receiver.onDatagram(messages, tampered);
+
+        // truncated
+        receiver.onDatagram(messages, ByteBuffer.wrap(new byte[8]));
+
+        assertTrue(messages.received.isEmpty());
+        assertNull(receiver.load("session"));
+    }
+
+    @Test
+    void lostMessages() throws IOException {
+        final var sender = backplane("secret");
+        final var receiver = backplane("secret");
+        final var messages = new Messages();
+        final var first = sender.message(MulticastBackplane.REMOVE, "1", out -> {
+        });
+        sender.message(MulticastBackplane.REMOVE, "2", out -> {
+        });
+        assertNull(sender.message(MulticastBackplane.EVENT, "3", out -> out.write(new byte[70_000]))); // too big for a datagram
+        final var last = sender.message(MulticastBackplane.REMOVE, "4", out -> {
+        });
+
+        receiver.onDatagram(messages, first);
+        receiver.onDatagram(messages, last);
+        assertEquals(List.of("remove:1", "remove:4"), messages.received);
+        assertEquals(2, receiver.lostMessages());
+    }
+
+    @Test
+    void ignoreReplayedMessages() throws IOException {
+        final var sender = backplane("secret");
+        final var receiver = backplane("secret");
+        final var messages = new Messages();
+        final var save = sender.message(MulticastBackplane.SAVE, "session", out -> out.writeUTF("debug"));
+        final var remove = sender.message(MulticastBackplane.REMOVE, "session", out -> {
+        });
+
+        receiver.onDatagram(messages, save.duplicate());
+        receiver.onDatagram(messages, remove.duplicate());
+        receiver.onDatagram(messages, remove.duplicate()); // duplicated datagram
+        receiver.onDatagram(messages, save.duplicate()); // replayed older datagram
+
+        assertEquals(List.of("save:session:debug", "remove:session"), messages.received);
+        assertNull(receiver.load("session"));
+        assertEquals(0, receiver.lostMessages());
+    }
+
+    @Test
+    void evictSilentNodes() throws IOException {
+        final var receiver = backplane("secret");
+        final var messages = new Messages();
+        receiver.onDatagram(messages, backplane("secret").message(MulticastBackplane.REMOVE, "1", out -> {
+        }));
+        receiver.onDatagram(messages, backplane("secret").message(MulticastBackplane.REMOVE, "2", out -> {
+        }));
+        assertEquals(2, receiver.knownNodes());
+
+        receiver.evictSilentNodes(System.nanoTime());
+        assertEquals(2, receiver.knownNodes());
+
+        receiver.evictSilentNodes(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEFAULT.session().idleTimeout()) * 3);
+        assertEquals(0, receiver.knownNodes());
+    }
+
+    private MulticastBackplane backplane(final String secret) {
+        return new MulticastBackplane(with(new MCPServerConfiguration.BackplaneConfiguration(
+                "multicast", "239.255.77.77", 45_677, "", 1, secret)));
+    }
+
+    private static class Messages implements MCPBackplane.Listener {
+        private final List<String> received = new ArrayList<>();
+
+        @Override
+        public void onSave(final MCPBackplane.SessionState state) {
+            received.add("save:" + state.id() + ':' + state.loggingLevel());
+        }
+
+        @Override
+        public void onRemove(final String id) {
+            received.add("remove:" + id);
+        }
+
+        @Override
+        public void onEvent(final String sessionId, final long eventId, final ByteBuffer frame) {
+            received.add("event:" + sessionId + ':' + eventId + ':' + UTF_8.decode(frame));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.build;
+
+import io.yupiik.fusion.json.internal.JsonMapperImpl;
+import io.yupiik.fusion.mcp.service.OpenRpcService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MCPCatalogGeneratorTest {
+    @Test
+    void generate(@TempDir final Path classes) throws IOException {
+        final var start = System.getProperty("fusion.http-server.start");
+        try {
+            MCPCatalogGenerator.main(classes.toString());
+        } finally {
+            if (start == null) {
+                System.clearProperty("fusion.http-server.start");
+            } else {
+                System.setProperty("fusion.http-server.start", start);
+            }
+        }
+
+        final var output = classes.resolve("META-INF/fusion/mcp/catalog.json");
+        assertTrue(Files.exists(output));
+        try (final var jsons = new JsonMapperImpl(List.of(), key -> Optional.empty())) {
+            @SuppressWarnings("unchecked") final var catalog = (Map<String, Object>) jsons.fromString(Object.class, Files.readString(output, UTF_8));
+            assertEquals(new OpenRpcService(null).openRpcHash(), catalog.get("openRpcHash"));
+            @SuppressWarnings("unchecked") final var tools = (List<Map<String, Object>>) catalog.get("tools");
+            assertEquals(List.of("test/echo", "test/fail", "test/thread", "test/void"), tools.stream().map(it -> (String) it.get("name")).sorted().toList());
+            @SuppressWarnings("unchecked") final var inputSchema = (Map<String, Object>) tools.stream()
+                    .filter(it -> "test/echo".equals(it.get("name")))
+                    .findFirst()
+                    .orElseThrow()
+                    .get("inputSchema");
+            assertEquals(List.of("text"), inputSchema.get("required"));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Base64SourceTest {
+    private final byte[] data = new byte[200_000];
+
+    {
+        new Random(1234).nextBytes(data);
+    }
+
+    @Test
+    void writer() throws IOException {
+        final var out = new StringWriter();
+        new Base64Source(new ByteArrayInputStream(data)).writeTo(out);
+        assertEquals(Base64.getEncoder().encodeToString(data), out.toString());
+    }
+
+    @Test
+    void publisher() {
+        final var out = new StringBuilder();
+        new Base64Source(ByteBuffer.wrap(data)).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(final ByteBuffer item) {
+                out.append(ISO_8859_1.decode(item));
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                out.append('$');
+            }
+        });
+        assertEquals(Base64.getEncoder().encodeToString(data) + '$', out.toString());
+    }
+}
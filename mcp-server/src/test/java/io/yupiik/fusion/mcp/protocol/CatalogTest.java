@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.jsonrpc.JsonRpcException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CatalogTest {
+    @Test
+    void pages() throws IOException {
+        final var catalog = new Catalog<>(List.of("e", "c", "a", "d", "b"), Function.identity(), it -> '"' + it + '"', 2);
+        final var pages = new ArrayList<String>();
+        String cursor = null;
+        do {
+            final var page = catalog.page(cursor);
+            final var out = new StringWriter();
+            page.items().writeTo(out);
+            pages.add(out.toString());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("[\"a\",\"b\"]", "[\"c\",\"d\"]", "[\"e\"]"), pages);
+    }
+
+    @Test
+    void stableCursor() {
+        final var cursor = new Catalog<>(List.of("a", "b", "c", "d"), Function.identity(), Function.identity(), 2).page(null).nextCursor();
+        // "b" was removed and "ab" added, next page still starts after the last returned item
+        final var updated = new Catalog<>(List.of("a", "ab", "c", "d"), Function.identity(), Function.identity(), 2);
+        final var page = updated.page(cursor);
+        assertEquals(List.of("c", "d"), page.items());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void hash() {
+        assertEquals(
+                new Catalog<>(List.of("a", "b"), Function.identity(), Function.identity(), 0).hash(),
+                new Catalog<>(List.of("b", "a"), Function.identity(), Function.identity(), 0).hash());
+        assertNotEquals(
+                new Catalog<>(List.of("a", "b"), Function.identity(), Function.identity(), 0).hash(),
+                new Catalog<>(List.of("ab"), Function.identity(), Function.identity(), 0).hash());
+    }
+
+    @Test
+    void invalidCursor() {
+        assertThrows(JsonRpcException.class, () -> new Catalog<>(List.of("a"), Function.identity(), Function.identity(), 1).page("%%"));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.mcp.api.MCPCompletionProvider;
+import io.yupiik.fusion.mcp.model.CompleteResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompletionIndexTest {
+    @Test
+    void staticValues() {
+        final var index = new CompletionIndex(List.of(new Provider("ref/prompt", "greet", "lang", List.of("java", "javascript", "go", "java", "rust"))), 0, 0);
+        assertEquals(new CompleteResult.Completion(false, 2, List.of("java", "javascript")), complete(index, "ref/prompt", "greet", "lang", "ja"));
+        assertEquals(new CompleteResult.Completion(false, 4, List.of("go", "java", "javascript", "rust")), complete(index, "ref/prompt", "greet", "lang", ""));
+        assertEquals(new CompleteResult.Completion(false, 0, List.of()), complete(index, "ref/prompt", "greet", "lang", "z"));
+        assertEquals(new CompleteResult.Completion(false, 0, List.of()), complete(index, "ref/prompt", "other", "lang", "ja"));
+    }
+
+    @Test
+    void largeStaticValues() {
+        final var index = new CompletionIndex(List.of(new Provider(
+                "ref/resource", "db://{table}", "table",
+                IntStream.range(0, 100_000).mapToObj(i -> "table_" + i).toList())), 0, 0);
+        assertTimeoutPreemptively(ofSeconds(10), () -> {
+            for (int i = 0; i < 10_000; i++) {
+                final var completion = complete(index, "ref/resource", "db://{table}", "table", "table_1");
+                assertTrue(completion.hasMore());
+                assertEquals(11_111, completion.total());
+                assertEquals(100, completion.values().size());
+            }
+        });
+    }
+
+    @Test
+    void dynamicCache() {
+        final var calls = new AtomicInteger();
+        final var index = new CompletionIndex(List.of(new Provider("ref/prompt", "greet", "name", null) {
+            @Override
+            public CompletionStage<List<String>> complete(final String prefix, final Map<String, String> arguments) {
+                calls.incrementAndGet();
+                return completedFuture(List.of(prefix + "-" + arguments.getOrDefault("lang", "")));
+            }
+        }), 60_000, 10);
+        assertEquals(List.of("a-"), complete(index, "ref/prompt", "greet", "name", "a").values());
+        assertEquals(List.of("a-"), complete(index, "ref/prompt", "greet", "name", "a").values());
+        assertEquals(1, calls.get());
+        assertEquals(List.of("a-java"), index.complete("ref/prompt", "greet", "name", "a", Map.of("lang", "java"))
+                .toCompletableFuture().join().values());
+        assertEquals(2, calls.get());
+        assertFalse(index.isEmpty());
+    }
+
+    @Test
+    void leastRecentlyUsedEviction() {
+        final var calls = new AtomicInteger();
+        final var index = new CompletionIndex(List.of(new Provider("ref/prompt", "greet", "name", null) {
+            @Override
+            public CompletionStage<List<String>> complete(final String prefix, final Map<String, String> arguments) {
+                calls.incrementAndGet();
+                return completedFuture(List.of(prefix));
+            }
+        }), 60_000, 2);
+        complete(index, "ref/prompt", "greet", "name", "a");
+        complete(index, "ref/prompt", "greet", "name", "b");
+        complete(index, "ref/prompt", "greet", "name", "a"); // hit, "b" is now the least recently used
+        assertEquals(2, calls.get());
+
+        complete(index, "ref/prompt", "greet", "name", "c"); // full: evicts "b" only
+        assertEquals(3, calls.get());
+        complete(index, "ref/prompt", "greet", "name", "a");
+        complete(index, "ref/prompt", "greet", "name", "c");
+        assertEquals(3, calls.get());
+        complete(index, "ref/prompt", "greet", "name", "b");
+        assertEquals(4, calls.get());
+    }
+
+    private CompleteResult.Completion complete(final CompletionIndex index, final String type, final String ref,
+                                               final String argument, final String prefix) {
+        return index.complete(type, ref, argument, prefix, null).toCompletableFuture().join();
+    }
+
+    private static class Provider implements MCPCompletionProvider {
+        private final String type;
+        private final String ref;
+        private final String argument;
+        private final List<String> values;
+
+        private Provider(final String type, final String ref, final String argument, final List<String> values) {
+            this.type = type;
+            this.ref = ref;
+            this.argument = argument;
+            this.values = values;
+        }
+
+        @Override
+        public String refType() {
+            return type;
+        }
+
+        @Override
+        public String ref() {
+            return ref;
+        }
+
+        @Override
+        public String argument() {
+            return argument;
+        }
+
+        @Override
+        public List<String> values() {
+            return values;
+        }
+    }
+}
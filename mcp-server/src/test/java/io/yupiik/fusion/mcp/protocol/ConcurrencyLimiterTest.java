@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.jsonrpc.JsonRpcException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+    private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1);
+
+    @BeforeEach
+    void removeCancelledTimeouts() {
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    @AfterEach
+    void stopTimer() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    void bulkhead() throws Exception {
+        final var limiter = new ConcurrencyLimiter("test", 1, 1, 60_000, 0, ForkJoinPool.commonPool(), timer);
+        final var first = new CompletableFuture<Object>();
+        final var firstResult = limiter.execute(() -> first).toCompletableFuture();
+        final var second = limiter.execute(() -> CompletableFuture.completedFuture("second")).toCompletableFuture();
+        assertFalse(second.isDone());
+
+        final var rejected = assertThrows(JsonRpcException.class, () -> limiter.execute(() -> CompletableFuture.completedFuture("third")));
+        assertEquals(MCPJSONRPCProtocol.OVERLOADED, rejected.code());
+
+        first.complete("first");
+        assertEquals("first", firstResult.get(1, TimeUnit.MINUTES));
+        assertEquals("second", second.get(1, TimeUnit.MINUTES));
+        assertEquals(0, limiter.inFlight());
+        assertTrue(timer.getQueue().isEmpty()); // the queue timeout was cancelled when the slot was granted
+    }
+
+    @Test
+    void queueTimeout() throws Exception {
+        final var limiter = new ConcurrencyLimiter("test", 1, 1, 10, 0, ForkJoinPool.commonPool(), timer);
+        final var first = new CompletableFuture<Object>();
+        limiter.execute(() -> first);
+        final var queued = limiter.execute(() -> CompletableFuture.completedFuture("queued")).toCompletableFuture();
+        final var error = assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.MINUTES));
+        assertInstanceOf(JsonRpcException.class, error.getCause());
+        first.complete(null);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void cancelledCallKeepsItsSlot() throws Exception {
+        final var limiter = new ConcurrencyLimiter("test", 1, 1, 60_000, 0, ForkJoinPool.commonPool(), timer);
+        final var cancellation = new MCPCancellation("1");
+        final var tool = new CompletableFuture<Object>();
+        final var response = cancellation.attach(limiter.execute(() -> tool, cancellation)).toCompletableFuture();
+
+        cancellation.cancel("user");
+        final var error = assertThrows(ExecutionException.class, () -> response.get(1, TimeUnit.MINUTES));
+        assertEquals(MCPJSONRPCProtocol.CANCELLED, assertInstanceOf(JsonRpcException.class, error.getCause()).code());
+        assertEquals(1, limiter.inFlight()); // the tool still runs
+
+        tool.complete("ignored");
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void cancelledWaiterLeavesTheQueue() throws Exception {
+        final var limiter = new ConcurrencyLimiter("test", 1, 1, 60_000, 0, ForkJoinPool.commonPool(), timer);
+        final var first = new CompletableFuture<Object>();
+        limiter.execute(() -> first);
+        final var cancellation = new MCPCancellation("2");
+        final var called = new AtomicBoolean();
+        final var queued = limiter.execute(() -> {
+            called.set(true);
+            return CompletableFuture.completedFuture("queued");
+        }, cancellation).toCompletableFuture();
+
+        cancellation.cancel("user");
+        final var error = assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.MINUTES));
+        assertEquals(MCPJSONRPCProtocol.CANCELLED, assertInstanceOf(JsonRpcException.class, error.getCause()).code());
+
+        // the queue has room again
+        final var next = limiter.execute(() -> CompletableFuture.completedFuture("next")).toCompletableFuture();
+        first.complete(null);
+        assertEquals("next", next.get(1, TimeUnit.MINUTES));
+        assertFalse(called.get());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void reconfigureKeepsInFlightCalls() throws Exception {
+        final var limiter = new ConcurrencyLimiter("test", 1, 1, 60_000, 0, ForkJoinPool.commonPool(), timer);
+        final var first = new CompletableFuture<Object>();
+        limiter.execute(() -> first);
+        limiter.configure(2, 0, 60_000, 0);
+        assertEquals(2, limiter.limit());
+        assertEquals(1, limiter.inFlight());
+
+        final var second = new CompletableFuture<Object>();
+        limiter.execute(() -> second);
+        assertThrows(JsonRpcException.class, () -> limiter.execute(() -> CompletableFuture.completedFuture("third")));
+        first.complete(null);
+        second.complete(null);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void longQueueOfSynchronousCalls() throws Exception {
+        final var limiter = new ConcurrencyLimiter("test", 1, 10_000, 60_000, 0, ForkJoinPool.commonPool(), timer);
+        final var first = new CompletableFuture<Object>();
+        limiter.execute(() -> first);
+        final var queued = IntStream.range(0, 10_000)
+                .mapToObj(i -> limiter.execute(() -> CompletableFuture.completedFuture(i)).toCompletableFuture())
+                .toList();
+        first.complete(null); // each release hands the slot over asynchronously instead of nesting
+        assertEquals(9_999, queued.getLast().get(1, TimeUnit.MINUTES));
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void adaptive() throws TimeoutException, ExecutionException, InterruptedException {
+        final var limiter = new ConcurrencyLimiter("test", 8, 0, 0, 1, ForkJoinPool.commonPool(), timer);
+        for (int i = 0; i < 3; i++) {
+            limiter.execute(() -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(5);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            })).toCompletableFuture().get(1, TimeUnit.MINUTES);
+        }
+        assertTrue(limiter.limit() < 8, () -> "limit=" + limiter.limit());
+    }
+
+    @Test
+    void slowBurstDecreasesOnce() throws Exception {
+        final var limiter = new ConcurrencyLimiter("test", 8, 0, 0, 1, ForkJoinPool.commonPool(), timer);
+        final var slow = new CompletableFuture<Object>();
+        final var calls = IntStream.range(0, 8)
+                .mapToObj(i -> limiter.execute(() -> slow).toCompletableFuture())
+                .toList();
+        Thread.sleep(5);
+        slow.complete(null); // the whole generation completes late at once
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(1, TimeUnit.MINUTES);
+        assertEquals(7, limiter.limit());
+
+        // a call started after the decrease can decrease it again
+        final var next = new CompletableFuture<Object>();
+        final var nextCall = limiter.execute(() -> next).toCompletableFuture();
+        Thread.sleep(5);
+        next.complete(null);
+        nextCall.get(1, TimeUnit.MINUTES);
+        assertEquals(6, limiter.limit());
+    }
+}
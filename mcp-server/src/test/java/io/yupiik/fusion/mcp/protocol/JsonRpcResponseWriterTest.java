@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.json.internal.JsonMapperImpl;
+import io.yupiik.fusion.jsonrpc.Response;
+import io.yupiik.fusion.mcp.model.BinaryContent;
+import io.yupiik.fusion.mcp.model.BinaryResource;
+import io.yupiik.fusion.mcp.model.ContentStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonRpcResponseWriterTest {
+    private final JsonRpcResponseWriter writer = new JsonRpcResponseWriter(
+            new JsonMapperImpl(List.of(), key -> Optional.empty()), new SerializedResults());
+
+    @Test
+    void structuredText() {
+        assertEquals(
+                "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"isError\":false,\"content\":[{\"type\":\"text\",\"text\":\"{\\\"a\\\":1}\"}],\"structuredContent\":{\"a\":1}}}",
+                writer.body(new Response("2.0", 1, new StructuredToolResult(Map.of("a", 1), true), null)));
+        assertEquals(
+                "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"isError\":false,\"content\":[],\"structuredContent\":{\"a\":1}}}",
+                writer.body(new Response("2.0", 1, new StructuredToolResult(Map.of("a", 1), false), null)));
+    }
+
+    @Test
+    void stream() throws Exception {
+        final var items = new SubmissionPublisher<Object>(Runnable::run, 1);
+        final var body = assertInstanceOf(Flow.Publisher.class, writer.body(new Response("2.0", 1, ContentStream.of(items), null)));
+        final var result = CompletableFuture.supplyAsync(() -> {
+            try {
+                return collect(body);
+            } catch (final Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (items.getNumberOfSubscribers() == 0) {
+            Thread.onSpinWait();
+        }
+        items.submit(BinaryContent.audio("audio/wav", ByteBuffer.wrap(new byte[]{0})));
+        items.submit(BinaryContent.image("image/png", ByteBuffer.wrap(new byte[]{1, 2, 3})));
+        items.close();
+        assertEquals(
+                "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"isError\":false,\"content\":[" +
+                        "{\"type\":\"audio\",\"mimetype\":\"audio/wav\",\"data\":\"AA==\"}," +
+                        "{\"type\":\"image\",\"mimetype\":\"image/png\",\"data\":\"AQID\"}]}}",
+                result.get(1, TimeUnit.MINUTES));
+        assertThrows(IllegalStateException.class, () -> writer.write(new Response("2.0", 1, ContentStream.of(items), null), new StringWriter()));
+    }
+
+    @Test
+    void embeddedBinaryResource() throws Exception {
+        final var data = new byte[100_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        final var expected = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"isError\":false,\"content\":[" +
+                "{\"type\":\"resource\",\"resource\":{\"uri\":\"file:///data.bin\",\"mimeType\":\"application/octet-stream\"," +
+                "\"blob\":\"" + Base64.getEncoder().encodeToString(data) + "\"}}]}}";
+
+        // string writer: encoded in place
+        final var out = new StringWriter();
+        writer.write(response(data), out);
+        assertEquals(expected, out.toString());
+
+        // transport: blob is a streamed segment of the body
+        final var body = assertInstanceOf(Flow.Publisher.class, writer.body(response(data)));
+        assertEquals(expected, collect(body));
+    }
+
+    private Response response(final byte[] data) {
+        return new Response("2.0", 1, BinaryContent.resource(BinaryResource.blob(
+                null, "file:///data.bin", "application/octet-stream", ByteBuffer.wrap(data))), null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String collect(final Flow.Publisher<?> body) throws Exception {
+        final var out = new StringBuilder();
+        final var done = new CompletableFuture<String>();
+        ((Flow.Publisher<ByteBuffer>) body).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(final ByteBuffer item) {
+                out.append(UTF_8.decode(item));
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(out.toString());
+            }
+        });
+        return done.get(1, TimeUnit.MINUTES);
+    }
+}
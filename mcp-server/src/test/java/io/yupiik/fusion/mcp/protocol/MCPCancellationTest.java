@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.jsonrpc.JsonRpcException;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MCPCancellationTest {
+    @Test
+    void cancelInFlight() {
+        final var session = new MCPSession("s", MCPServerConfiguration.SseConfiguration.DEFAULT, null);
+        final var cancellation = new MCPCancellation("1");
+        session.register(cancellation);
+        final var stage = cancellation.attach(new CompletableFuture<>()).toCompletableFuture();
+        final var called = new AtomicBoolean();
+        cancellation.onCancel(() -> called.set(true));
+
+        assertFalse(session.cancel("2", "wrong id"));
+        assertTrue(session.cancel("1", "user"));
+        assertFalse(session.cancel("1", "user")); // already done
+
+        assertTrue(called.get());
+        assertEquals("user", cancellation.reason());
+        final var error = assertThrows(ExecutionException.class, stage::get);
+        assertEquals(MCPJSONRPCProtocol.CANCELLED, assertInstanceOf(JsonRpcException.class, error.getCause()).code());
+    }
+
+    @Test
+    void interrupt() throws InterruptedException {
+        final var cancellation = new MCPCancellation("1");
+        final var started = new CountDownLatch(1);
+        final var interrupted = new AtomicBoolean();
+        final var thread = Thread.ofVirtual().start(() -> {
+            cancellation.enter();
+            try {
+                started.countDown();
+                Thread.sleep(60_000);
+            } catch (final InterruptedException e) {
+                interrupted.set(true);
+            } finally {
+                cancellation.exit();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.MINUTES));
+        cancellation.cancel("stop");
+        thread.join(60_000);
+        assertTrue(interrupted.get());
+    }
+}
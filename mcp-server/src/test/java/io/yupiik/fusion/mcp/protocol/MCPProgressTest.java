@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import io.yupiik.fusion.mcp.model.ProgressNotification;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MCPProgressTest {
+    @Test
+    void coalesce() {
+        final var sent = new CopyOnWriteArrayList<Object>();
+        final var session = new MCPSession("s", MCPServerConfiguration.SseConfiguration.DEFAULT, null) {
+            @Override
+            public long publish(final SseEncoder encoder, final String method, final Object params) {
+                sent.add(params);
+                return 0;
+            }
+        };
+        final var progress = new MCPProgress("token", session, null, 60_000);
+        for (int i = 1; i <= 10_000; i++) {
+            progress.report(i, 10_000, "step");
+        }
+        progress.close();
+        progress.report(10_001);
+
+        assertEquals(List.of(
+                new ProgressNotification("token", 1, 10_000., "step"),
+                new ProgressNotification("token", 10_000, 10_000., "step")), sent);
+    }
+
+    @Test
+    void closeWaitsForPendingPublication() throws InterruptedException {
+        final var sent = new CopyOnWriteArrayList<Object>();
+        final var publishing = new CountDownLatch(1);
+        final var session = new MCPSession("s", MCPServerConfiguration.SseConfiguration.DEFAULT, null) {
+            @Override
+            public long publish(final SseEncoder encoder, final String method, final Object params) {
+                if (!sent.isEmpty()) { // slow delayed flush
+                    publishing.countDown();
+                    try {
+                        Thread.sleep(200);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                sent.add(params);
+                return 0;
+            }
+        };
+        final var progress = new MCPProgress("token", session, null, 50);
+        progress.report(1); // sent inline
+        progress.report(2); // sent by the delayed flush
+        assertTrue(publishing.await(1, TimeUnit.MINUTES));
+        progress.close();
+
+        // the response is sent after close() so the last progress must already be published
+        assertEquals(List.of(
+                new ProgressNotification("token", 1, null, null),
+                new ProgressNotification("token", 2, null, null)), sent);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static io.yupiik.fusion.mcp.test.TestConfigurations.with;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MCPResourceSubscriptionsTest {
+    @Test
+    void debouncedFanOut() throws InterruptedException {
+        final var encoded = new CopyOnWriteArrayList<Object>();
+        final var latch = new CountDownLatch(2);
+        final var encoder = new SseEncoder() {
+            @Override
+            public SseFrame encodeNotification(final String id, final String method, final Object params) {
+                encoded.add(params);
+                return SseFrame.of(method);
+            }
+        };
+        final var subscriptions = new MCPResourceSubscriptions(encoder, with(new MCPServerConfiguration.ResourcesConfiguration(50)));
+        final var first = new CountingSession("1", latch);
+        final var second = new CountingSession("2", latch);
+        subscriptions.subscribe(first, "file:///a", null);
+        subscriptions.subscribe(second, "file:///a", null);
+        subscriptions.subscribe(second, "file:///b", null);
+
+        for (int i = 0; i < 1_000; i++) {
+            subscriptions.updated("file:///a");
+        }
+        subscriptions.updated("file:///unknown");
+
+        assertTrue(latch.await(1, TimeUnit.MINUTES));
+        Thread.sleep(100); // ensure nothing else is sent
+        assertEquals(1, encoded.size());
+        assertEquals(1, first.pushed.size());
+        assertEquals(1, second.pushed.size());
+
+        subscriptions.remove(second);
+        assertEquals(0, subscriptions.subscribers("file:///b"));
+        assertEquals(1, subscriptions.subscribers("file:///a"));
+        subscriptions.unsubscribe(first, "file:///a");
+        assertEquals(0, subscriptions.subscribers("file:///a"));
+    }
+
+    @Test
+    void watchFile(@TempDir final Path directory) throws IOException, InterruptedException {
+        final var file = Files.writeString(directory.resolve("resource.txt"), "v1");
+        final var encoder = new SseEncoder() {
+            @Override
+            public SseFrame encodeNotification(final String id, final String method, final Object params) {
+                return SseFrame.of(method);
+            }
+        };
+        final var subscriptions = new MCPResourceSubscriptions(encoder, with(new MCPServerConfiguration.ResourcesConfiguration(10)));
+        try {
+            final var latch = new CountDownLatch(2);
+            final var first = new CountingSession("1", latch);
+            final var second = new CountingSession("2", latch);
+            subscriptions.subscribe(first, "file:///resource.txt", file);
+            subscriptions.subscribe(second, "file:///resource.txt", file);
+            assertEquals(1, subscriptions.watchedFiles());
+
+            Files.writeString(file, "v2");
+            assertTrue(latch.await(1, TimeUnit.MINUTES));
+
+            subscriptions.remove(first);
+            assertEquals(1, subscriptions.watchedFiles()); // still a subscriber
+            subscriptions.unsubscribe(second, "file:///resource.txt");
+            assertEquals(0, subscriptions.watchedFiles());
+        } finally {
+            subscriptions.destroy();
+        }
+    }
+
+    @Test
+    void concurrentSubscriptions(@TempDir final Path directory) throws Exception {
+        final var file = Files.writeString(directory.resolve("resource.txt"), "v1");
+        final var subscriptions = new MCPResourceSubscriptions(new SseEncoder(), with(new MCPServerConfiguration.ResourcesConfiguration(10)));
+        try (final var threads = Executors.newFixedThreadPool(8)) {
+            final var tasks = IntStream.range(0, 8)
+                    .mapToObj(i -> threads.submit(() -> {
+                        final var session = new CountingSession(Integer.toString(i), new CountDownLatch(1));
+                        for (int j = 0; j < 1_000; j++) {
+                            subscriptions.subscribe(session, "file:///resource.txt", file);
+                            if (j % 2 == 0) {
+                                subscriptions.unsubscribe(session, "file:///resource.txt");
+                            } else {
+                                subscriptions.remove(session);
+                            }
+                        }
+                        return null;
+                    }))
+                    .toList();
+            for (final var task : tasks) {
+                task.get(1, TimeUnit.MINUTES);
+            }
+            // the watch follows the subscribers, no leaked watch once everybody left
+            assertEquals(0, subscriptions.subscribers("file:///resource.txt"));
+            assertEquals(0, subscriptions.watchedFiles());
+        } finally {
+            subscriptions.destroy();
+        }
+    }
+
+    private static class CountingSession extends MCPSession {
+        private final List<SseFrame> pushed = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+
+        private CountingSession(final String id, final CountDownLatch latch) {
+            super(id, MCPServerConfiguration.SseConfiguration.DEFAULT, null);
+            this.latch = latch;
+        }
+
+        @Override
+        boolean push(final SseFrame frame) {
+            pushed.add(frame);
+            latch.countDown();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.mcp.backplane.InMemoryBackplane;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import io.yupiik.fusion.mcp.model.LoggingLevel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MCPSessionRegistryTest {
+    @Test
+    void replicas() {
+        // two nodes sharing the same backplane
+        final var configuration = MCPServerConfiguration.DEFAULT;
+        final var backplane = new InMemoryBackplane(configuration);
+        final var subscriptions = new MCPResourceSubscriptions(new SseEncoder(), configuration);
+        final var first = new MCPSessionRegistry(configuration, List.of(backplane), subscriptions);
+        final var second = new MCPSessionRegistry(configuration, List.of(backplane), subscriptions);
+        first.init();
+        second.init();
+        try {
+            final var session = first.create();
+            session.setLoggingLevel(LoggingLevel.debug);
+
+            final var replica = second.find(session.id());
+            assertNotSame(session, replica);
+            assertEquals(session.id(), replica.id());
+            assertEquals(LoggingLevel.debug, replica.getLoggingLevel());
+            assertSame(replica, second.find(session.id())); // loaded once
+            assertEquals(1, second.size());
+
+            assertNull(second.find("unknown"));
+
+            // explicit termination from any node
+            assertTrue(second.remove(session.id()));
+            assertEquals(0, second.size());
+            assertNull(backplane.load(session.id()));
+            assertFalse(second.remove(session.id()));
+        } finally {
+            second.destroy();
+            first.destroy();
+            subscriptions.destroy();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.json.internal.JsonMapperImpl;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MCPSessionTest {
+    @Test
+    void publishBeforeSubscription() {
+        try (final var jsons = new JsonMapperImpl(List.of(), key -> Optional.empty())) {
+            final var configuration = MCPServerConfiguration.DEFAULT;
+            final var encoder = new SseEncoder(jsons, configuration);
+            final var session = new MCPSession("session", configuration.sse(), null);
+            session.publish(encoder, "notifications/message", Map.of("data", "before"));
+
+            // the HTTP layer subscribes after newSse() returned, events published in between must not be lost
+            final var bus = session.newSse(configuration.sse());
+            final long eventId = session.publish(encoder, "notifications/message", Map.of("data", "gap"));
+
+            final var received = new ArrayList<String>();
+            bus.subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(final Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(final ByteBuffer item) {
+                    received.add(UTF_8.decode(item).toString());
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {
+                    // no-op
+                }
+
+                @Override
+                public void onComplete() {
+                    // no-op
+                }
+            });
+            session.publish(encoder, "notifications/message", Map.of("data", "after"));
+
+            assertEquals(3, received.size(), received::toString);
+            assertEquals(List.of("before", "gap", "after"), received.stream()
+                    .map(it -> it.substring(it.indexOf("\"data\":\"") + 8, it.lastIndexOf('"')))
+                    .toList());
+            assertEquals("id: " + eventId, received.get(1).lines().findFirst().orElseThrow());
+        }
+    }
+}
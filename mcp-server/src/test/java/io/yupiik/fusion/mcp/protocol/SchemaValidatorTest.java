@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.mcp.model.JsonSchema;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaValidatorTest {
+    private final SchemaValidator validator = SchemaValidator.compile("test", new JsonSchema(
+            "object", null, null, null, null, null,
+            Map.of(
+                    "name", new JsonSchema(false, null, null, "^[a-z]+$"),
+                    "kind", new JsonSchema(true, null, (String) null, null, List.of("A", "B")),
+                    "count", new JsonSchema("integer", false, null),
+                    "children", new JsonSchema(true, null, new JsonSchema(null, null, null, null, null, null, null, null, null, null, null, null, "#/$defs/Node", null))),
+            false, null, null, List.of("name", "count"), null, null,
+            Map.of("Node", new JsonSchema(null, null, Map.of(
+                    "name", new JsonSchema("string", false, null),
+                    "children", new JsonSchema(true, null, new JsonSchema(null, null, null, null, null, null, null, null, null, null, null, null, "#/$defs/Node", null))),
+                    List.of("name")))));
+
+    @Test
+    void valid() {
+        assertEquals(List.of(), validator.validate(Map.of(
+                "name", "foo", "kind", "A", "count", new BigDecimal("2"),
+                "children", List.of(Map.of("name", "c1", "children", List.of(Map.of("name", "c2")))))));
+    }
+
+    @Test
+    void invalid() {
+        assertEquals(
+                List.of("/count: missing required property", "/name: 'Foo' does not match '^[a-z]+$'"),
+                validator.validate(Map.of("name", "Foo")));
+        assertEquals(List.of("/count: expected integer but got BigDecimal"), validator.validate(Map.of("name", "foo", "count", new BigDecimal("1.5"))));
+        assertTrue(validator.validate(Map.of("name", "foo", "count", 1, "kind", "C")).get(0).startsWith("/kind: 'C' is not one of"));
+        assertEquals(List.of("/other: unknown property"), validator.validate(Map.of("name", "foo", "count", 1, "other", true)));
+        assertEquals(
+                List.of("/children/0/children/0/name: missing required property"),
+                validator.validate(Map.of("name", "foo", "count", 1, "children", List.of(Map.of("name", "c1", "children", List.of(Map.of()))))));
+        assertTrue(validator.validate("not an object").get(0).startsWith("/: expected object"));
+    }
+
+    @Test
+    void unsupportedPattern() {
+        // named group with an underscore is valid in ECMA 262 but not in java, only this keyword is ignored
+        final var lenient = SchemaValidator.compile("test", new JsonSchema(
+                "object", null, null, null, null, null,
+                Map.of(
+                        "code", new JsonSchema(false, null, null, "^(?<country_code>[A-Z]{2})$"),
+                        "name", new JsonSchema(false, null, null, "^[a-z]+$")),
+                false, null, null, List.of("code"), null, null, null));
+        assertEquals(List.of(), lenient.validate(Map.of("code", "anything", "name", "foo")));
+        assertEquals(List.of("/name: 'Foo' does not match '^[a-z]+$'"), lenient.validate(Map.of("code", "FR", "name", "Foo")));
+        assertEquals(List.of("/code: missing required property"), lenient.validate(Map.of()));
+    }
+}
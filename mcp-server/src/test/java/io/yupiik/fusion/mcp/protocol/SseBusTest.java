@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static io.yupiik.fusion.mcp.test.TestConfigurations.with;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SseBusTest {
+    @Test
+    void dropOldest() {
+        final var bus = new SseBus(new MCPServerConfiguration.SseConfiguration(2, SseBus.OverflowPolicy.DROP_OLDEST, 0, 1024, 0, 0));
+        assertTrue(bus.publish("1"));
+        assertTrue(bus.publish("2"));
+        assertTrue(bus.publish("3"));
+
+        final var subscriber = new CollectingSubscriber();
+        bus.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(List.of("2", "3"), subscriber.messages);
+        final var metrics = bus.metrics();
+        assertEquals(0, metrics.depth());
+        assertEquals(3, metrics.published());
+        assertEquals(2, metrics.delivered());
+        assertEquals(1, metrics.dropped());
+    }
+
+    @Test
+    void blockTimeout() {
+        final var bus = new SseBus(new MCPServerConfiguration.SseConfiguration(2, SseBus.OverflowPolicy.BLOCK, 1, 1024, 0, 0));
+        assertTrue(bus.publish("1"));
+        assertTrue(bus.publish("2"));
+        assertFalse(bus.publish("3"));
+        assertEquals(1, bus.metrics().dropped());
+    }
+
+    @Test
+    void disconnect() {
+        final var bus = new SseBus(new MCPServerConfiguration.SseConfiguration(2, SseBus.OverflowPolicy.DISCONNECT, 0, 1024, 0, 0));
+        final var subscriber = new CollectingSubscriber();
+        bus.subscribe(subscriber);
+        assertTrue(bus.publish("1"));
+        assertTrue(bus.publish("2"));
+        assertFalse(bus.publish("3"));
+        assertTrue(subscriber.completed);
+        assertEquals(3, bus.metrics().dropped());
+    }
+
+    @Test
+    void demand() {
+        final var bus = new SseBus();
+        for (int i = 0; i < 5; i++) {
+            bus.publish(Integer.toString(i));
+        }
+
+        final var subscriber = new CollectingSubscriber();
+        bus.subscribe(subscriber);
+        subscriber.subscription.request(2);
+        assertEquals(List.of("0", "1"), subscriber.messages);
+        assertEquals(3, bus.metrics().depth());
+
+        subscriber.subscription.request(3);
+        assertEquals(List.of("0", "1", "2", "3", "4"), subscriber.messages);
+    }
+
+    @Test
+    void demandPerSubscription() {
+        final var bus = new SseBus();
+        final var first = new CollectingSubscriber();
+        bus.subscribe(first);
+        first.subscription.request(1);
+        bus.publish("1");
+
+        final var second = new CollectingSubscriber();
+        bus.subscribe(second); // replaces the first one
+        assertTrue(first.completed);
+        for (int i = 2; i < 5; i++) {
+            bus.publish(Integer.toString(i));
+        }
+
+        first.subscription.request(10); // late request of the replaced subscription
+        assertEquals(List.of("1"), first.messages);
+        assertEquals(List.of(), second.messages);
+
+        second.subscription.request(2);
+        assertEquals(List.of("2", "3"), second.messages);
+        second.subscription.request(1);
+        assertEquals(List.of("2", "3", "4"), second.messages);
+    }
+
+    @Test
+    void pushAfterSubscription() {
+        final var bus = new SseBus();
+        final var subscriber = new CollectingSubscriber();
+        bus.subscribe(subscriber);
+        subscriber.subscription.request(2);
+
+        bus.publish("1");
+        assertEquals(List.of("1"), subscriber.messages);
+        bus.publish("2");
+        bus.publish("3"); // no more demand
+        assertEquals(List.of("1", "2"), subscriber.messages);
+        assertEquals(1, bus.metrics().depth());
+
+        subscriber.subscription.request(1);
+        assertEquals(List.of("1", "2", "3"), subscriber.messages);
+    }
+
+    @Test
+    void reentrantPublish() {
+        final var bus = new SseBus();
+        final var subscriber = new CollectingSubscriber() {
+            @Override
+            public void onNext(final ByteBuffer item) {
+                super.onNext(item);
+                if (messages.size() < 3) { // publishing from onNext must not recurse
+                    bus.publish(Integer.toString(messages.size() + 1));
+                }
+            }
+        };
+        bus.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        bus.publish("1");
+        assertEquals(List.of("1", "2", "3"), subscriber.messages);
+    }
+
+    @Test
+    void asynchronousSubscriber() throws Exception {
+        final var encoder = new SseEncoder(null, with(new MCPServerConfiguration.SseConfiguration(16, SseBus.OverflowPolicy.DROP_OLDEST, 0, 64, 0, 0)));
+        final var bus = new SseBus();
+        final var pending = new ArrayList<ByteBuffer>();
+        bus.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(final ByteBuffer item) {
+                pending.add(item); // written later by another thread
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                // no-op
+            }
+
+            @Override
+            public void onComplete() {
+                // no-op
+            }
+        });
+
+        for (int i = 0; i < 3; i++) { // small buffer: frames grow it, written content must not be shared between frames
+            bus.publish(encoder.encode(null, null, "frame-" + i + "-" + "x".repeat(64)));
+        }
+
+        final var written = CompletableFuture.supplyAsync(() -> pending.stream()
+                .map(buffer -> UTF_8.decode(buffer).toString())
+                .toList());
+        final var padding = "x".repeat(64);
+        assertEquals(
+                List.of("data: frame-0-" + padding + "\n\n", "data: frame-1-" + padding + "\n\n", "data: frame-2-" + padding + "\n\n"),
+                written.get(1, TimeUnit.MINUTES));
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        protected final List<String> messages = new ArrayList<>();
+        protected Flow.Subscription subscription;
+        protected boolean completed;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final ByteBuffer item) {
+            final var bytes = new byte[item.remaining()];
+            item.get(bytes);
+            messages.add(new String(bytes, UTF_8));
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            completed = true;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
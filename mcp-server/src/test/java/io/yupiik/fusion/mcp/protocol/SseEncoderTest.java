@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import org.junit.jupiter.api.Test;
+
+import static io.yupiik.fusion.mcp.test.TestConfigurations.with;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SseEncoderTest {
+    private final SseEncoder encoder = new SseEncoder(null, with(
+            new MCPServerConfiguration.SseConfiguration(16, SseBus.OverflowPolicy.DROP_OLDEST, 0, 32, 0, 0)));
+
+    @Test
+    void framing() {
+        assertEquals("id: 1\nevent: message\ndata: {}\n\n", string(encoder.encode("1", "message", "{}")));
+        assertEquals("data: test\n\n", string(encoder.encode(null, null, "test")));
+    }
+
+    @Test
+    void multiline() {
+        assertEquals("data: a\ndata: b\ndata: c\ndata: d\n\n", string(encoder.encode(null, null, "a\nb\r\nc\rd")));
+        assertEquals("id: 1 2\ndata: x\n\n", string(encoder.encode("1\n2", null, "x")));
+    }
+
+    @Test
+    void unicodeAndGrowth() {
+        final var data = "é€😀".repeat(20);
+        assertEquals("data: " + data + "\n\n", string(encoder.encode(null, null, data)));
+    }
+
+    private String string(final SseFrame frame) {
+        final var content = frame.content();
+        final var bytes = new byte[content.remaining()];
+        content.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamedBodyTest {
+    @Test
+    void concat() {
+        final var upstream = new SubmissionPublisher<String>(Runnable::run, 1);
+        final var body = new StreamedBody(new ArrayDeque<>(List.of(
+                wrap("["),
+                new StreamedBody.Source(upstream, (item, first) -> wrap((first ? "" : ",") + item)),
+                wrap("]"))));
+
+        final var out = new StringBuilder();
+        final var completed = new boolean[1];
+        final var subscription = new Flow.Subscription[1];
+        body.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription s) {
+                subscription[0] = s;
+            }
+
+            @Override
+            public void onNext(final ByteBuffer item) {
+                out.append(UTF_8.decode(item));
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed[0] = true;
+            }
+        });
+
+        subscription[0].request(1);
+        assertEquals("[", out.toString());
+
+        subscription[0].request(Long.MAX_VALUE);
+        upstream.submit("1");
+        upstream.submit("2");
+        assertEquals("[1,2", out.toString());
+
+        upstream.close();
+        assertTrue(completed[0]);
+        assertEquals("[1,2]", out.toString());
+    }
+
+    private static ByteBuffer wrap(final String value) {
+        return ByteBuffer.wrap(value.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import io.yupiik.fusion.framework.api.configuration.Configuration;
+import io.yupiik.fusion.json.JsonMapper;
+import io.yupiik.fusion.jsonrpc.JsonRpcRegistry;
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+import io.yupiik.fusion.mcp.service.OpenRpcService;
+import io.yupiik.fusion.testing.Fusion;
+import io.yupiik.fusion.testing.FusionSupport;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.Map;
+
+import static io.yupiik.fusion.mcp.test.TestConfigurations.with;
+import static java.net.http.HttpResponse.BodyHandlers.ofString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@FusionSupport
+class ToolExecutorTest {
+    @Test
+    @SuppressWarnings("unchecked")
+    void virtualThread(@Fusion final URI mcpEndpoint, @Fusion final HttpClient http, @Fusion final JsonMapper jsons) throws IOException, InterruptedException {
+        final var res = http.send(HttpRequest.newBuilder()
+                        .POST(HttpRequest.BodyPublishers.ofString("""
+                                {
+                                  "jsonrpc": "2.0",
+                                  "id": 1,
+                                  "method": "tools/call",
+                                  "params": {
+                                    "name": "test/thread",
+                                    "arguments": {}
+                                  }
+                                }"""))
+                        .uri(mcpEndpoint)
+                        .header("accept", "application/json")
+                        .header("content-type", "application/json")
+                        .build(),
+                ofString());
+        assertEquals(200, res.statusCode());
+
+        final var body = (Map<String, Object>) jsons.fromString(Object.class, res.body());
+        final var thread = (Map<String, Object>) ((Map<String, Object>) body.get("result")).get("structuredContent");
+        assertEquals(true, thread.get("virtual"));
+        assertTrue(((String) thread.get("name")).startsWith("fusion-mcp-tool-"), () -> "thread=" + thread);
+    }
+
+    @Test
+    void destroy(@Fusion final OpenRpcService openRpcService, @Fusion final JsonMapper jsons, @Fusion final JsonRpcRegistry registry,
+                 @Fusion final Configuration configuration, @Fusion final MCPSessionRegistry sessions, @Fusion final SseEncoder encoder,
+                 @Fusion final MCPResourceSubscriptions subscriptions) {
+        final var protocol = new MCPJSONRPCProtocol(
+                openRpcService, jsons, registry, MCPServerConfiguration.DEFAULT, configuration,
+                new SerializedResults(), sessions, encoder, List.of(), subscriptions, List.of());
+        assertFalse(protocol.toolExecutor().isShutdown());
+        protocol.destroy();
+        assertTrue(protocol.toolExecutor().isShutdown());
+    }
+
+    @Test
+    void unknownExecutor() {
+        final var error = assertThrows(IllegalArgumentException.class, () -> new MCPJSONRPCProtocol(
+                null, null, null, with(new MCPServerConfiguration.ToolsConfiguration(true, true, "pool", 100L)),
+                null, null, null, null, null, null, null));
+        assertEquals("Unknown executor 'pool' (fusion.mcp.tools.executor), available: [caller, virtual]", error.getMessage());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class UriTemplateRouterTest {
+    @Test
+    void match() {
+        final var router = new UriTemplateRouter<String>();
+        router.add("db://{table}/rows/{id}", "row");
+        router.add("db://{table}/rows/{id}.json", "json");
+        router.add("db://{table}/schema", "schema");
+        router.add("file:///{+path}", "file");
+        router.add("doc://{name}{#section}", "section");
+
+        assertMatch(router, "db://users/rows/42", "row", Map.of("table", "users", "id", "42"));
+        assertMatch(router, "db://users/rows/42.json", "json", Map.of("table", "users", "id", "42"));
+        assertMatch(router, "db://users/schema", "schema", Map.of("table", "users"));
+        assertMatch(router, "file:///etc/hosts", "file", Map.of("path", "etc/hosts"));
+        assertMatch(router, "db://my%20table/rows/1", "row", Map.of("table", "my table", "id", "1"));
+        assertMatch(router, "doc://readme#install/linux", "section", Map.of("name", "readme", "section", "install/linux"));
+        assertNull(router.match("db://users/rows/"));
+        assertNull(router.match("db://users/other"));
+        assertNull(router.match("http://foo"));
+    }
+
+    @Test
+    void unsupported() {
+        final var router = new UriTemplateRouter<String>();
+        assertThrows(IllegalArgumentException.class, () -> router.add("db://{?query}", "level3"));
+        assertThrows(IllegalArgumentException.class, () -> router.add("db://{a,b}", "level3"));
+        router.add("db://{a}", "a");
+        assertThrows(IllegalArgumentException.class, () -> router.add("db://{a}", "duplicate"));
+        final var renamed = assertThrows(IllegalArgumentException.class, () -> router.add("db://{b}", "renamed"));
+        assertEquals("Template 'db://{b}' conflicts with 'db://{a}'", renamed.getMessage());
+    }
+
+    @Test
+    void variableNamesPerTemplate() {
+        final var router = new UriTemplateRouter<String>();
+        router.add("db://{table}/rows", "rows");
+        router.add("db://{view}/columns", "columns");
+        assertMatch(router, "db://users/rows", "rows", Map.of("table", "users"));
+        assertMatch(router, "db://active/columns", "columns", Map.of("view", "active"));
+    }
+
+    @Test
+    void pathologicalUri() {
+        final var router = new UriTemplateRouter<String>();
+        router.add("file:///{+dir}/{+name}.json", "json");
+        assertMatch(router, "file:///a/b/c.d.json", "json", Map.of("dir", "a", "name", "b/c.d"));
+
+        final var segments = "file:///" + "a/".repeat(100_000);
+        assertTimeoutPreemptively(ofSeconds(10), () -> {
+            assertNull(router.match(segments)); // each split is tried once, in a bounded number of steps
+            assertEquals("a", router.match(segments + "b.json").variables().get("dir"));
+        });
+    }
+
+    @Test
+    void manyTemplates() {
+        final var router = new UriTemplateRouter<Integer>();
+        for (int i = 0; i < 10_000; i++) {
+            router.add("app://service" + i + "/{tenant}/items/{id}", i);
+        }
+        assertTimeoutPreemptively(ofSeconds(10), () -> {
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(i, router.match("app://service" + i + "/acme/items/" + i).value());
+            }
+        });
+    }
+
+    private void assertMatch(final UriTemplateRouter<String> router, final String uri, final String value, final Map<String, String> variables) {
+        final var match = router.match(uri);
+        assertEquals(value, match.value(), uri);
+        assertEquals(variables, match.variables(), uri);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.service;
+
+import io.yupiik.fusion.json.JsonMapper;
+import io.yupiik.fusion.mcp.model.JsonSchema;
+import io.yupiik.fusion.mcp.model.ListToolsResponse;
+import io.yupiik.fusion.mcp.model.fusion.MCPCatalog;
+import io.yupiik.fusion.mcp.protocol.MCPJSONRPCProtocol;
+import io.yupiik.fusion.testing.Fusion;
+import io.yupiik.fusion.testing.FusionSupport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.net.http.HttpResponse.BodyHandlers.ofString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@FusionSupport
+class OpenRpcServiceTest {
+    @Test
+    void buildTimeCatalog(@Fusion final OpenRpcService service, @Fusion final JsonMapper jsons,
+                          @Fusion final MCPJSONRPCProtocol protocol, @Fusion final URI mcpEndpoint, @Fusion final HttpClient http,
+                          @TempDir final Path classes) throws IOException, InterruptedException {
+        assertTrue(service.loadCatalog().isEmpty()); // not generated for tests
+
+        final var output = classes.resolve("META-INF/fusion/mcp/catalog.json");
+        Files.createDirectories(output.getParent());
+        final var thread = Thread.currentThread();
+        final var loader = thread.getContextClassLoader();
+        try (final var catalogLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, loader)) {
+            thread.setContextClassLoader(catalogLoader);
+
+            Files.writeString(output, jsons.toString(catalog("From the build.", service.openRpcHash())), UTF_8);
+            assertEquals("From the build.", service.loadCatalog().orElseThrow().tools().getFirst().description());
+            protocol.reload();
+            assertEquals("From the build.", toolDescription(mcpEndpoint, http, jsons));
+
+            // openrpc.json changed since the generation: the catalog is computed again
+            Files.writeString(output, jsons.toString(catalog("Stale.", "another-openrpc")), UTF_8);
+            assertTrue(service.loadCatalog().isEmpty());
+            protocol.reload();
+            assertEquals("Echoes its input.", toolDescription(mcpEndpoint, http, jsons));
+        } finally {
+            thread.setContextClassLoader(loader);
+            protocol.reload();
+        }
+    }
+
+    private MCPCatalog catalog(final String description, final String hash) {
+        return new MCPCatalog(
+                Stream.of("test/echo", "test/fail", "test/thread", "test/void")
+                        .map(name -> new ListToolsResponse.Tool(
+                                null, null, name, name, description,
+                                new JsonSchema("object", false, "Input request for " + name), null))
+                        .toList(),
+                List.of(), hash);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String toolDescription(final URI mcpEndpoint, final HttpClient http, final JsonMapper jsons) throws IOException, InterruptedException {
+        final var res = http.send(HttpRequest.newBuilder()
+                        .POST(HttpRequest.BodyPublishers.ofString("""
+                                {
+                                  "jsonrpc": "2.0",
+                                  "id": 1,
+                                  "method": "tools/list",
+                                  "params": {}
+                                }"""))
+                        .uri(mcpEndpoint)
+                        .header("accept", "application/json")
+                        .header("content-type", "application/json")
+                        .build(),
+                ofString());
+        assertEquals(200, res.statusCode());
+        final var result = (Map<String, Object>) ((Map<String, Object>) jsons.fromString(Object.class, res.body())).get("result");
+        return ((List<Map<String, Object>>) result.get("tools")).stream()
+                .filter(it -> "test/echo".equals(it.get("name")))
+                .map(it -> (String) it.get("description"))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.service;
+
+import io.yupiik.fusion.mcp.model.fusion.OpenRpc;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SchemaConverterTest {
+    @Test
+    void fromMap() {
+        final var schema = SchemaConverter.fromMap(Map.of(
+                "type", "object",
+                "properties", Map.of("name", Map.of("type", "string", "pattern", "[a-z]+")),
+                "additionalProperties", false,
+                "items", Map.of("$ref", "#/schemas/Item"),
+                "enum", List.of("a", "b")));
+        assertEquals("object", schema.type());
+        assertEquals("[a-z]+", schema.properties().get("name").pattern());
+        assertEquals(false, schema.additionalProperties());
+        assertEquals("#/schemas/Item", schema.items().ref());
+        assertEquals(List.of("a", "b"), schema.enumeration());
+    }
+
+    @Test
+    void interning() {
+        final var converter = new SchemaConverter();
+        final var first = converter.toMcp(object("string"));
+        final var second = converter.toMcp(object("string"));
+        assertSame(first, second);
+        assertSame(first.properties().get("value"), converter.toMcp(primitive("string")));
+        assertSame(converter.toMcp(new OpenRpc.JsonSchema(null, null, "object", null, null, null, null, null, Map.of("type", "string"), null, null)).additionalProperties(),
+                first.properties().get("value"));
+    }
+
+    private OpenRpc.JsonSchema object(final String type) {
+        return new OpenRpc.JsonSchema(null, null, "object", null, null, null, null, Map.of("value", primitive(type)), null, null, null);
+    }
+
+    private OpenRpc.JsonSchema primitive(final String type) {
+        return new OpenRpc.JsonSchema(null, null, type, null, null, null, null, null, null, null, null);
+    }
+}
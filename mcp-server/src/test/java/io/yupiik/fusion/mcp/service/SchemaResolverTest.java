@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.service;
+
+import io.yupiik.fusion.mcp.model.fusion.OpenRpc;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class SchemaResolverTest {
+    @Test
+    void recursive() {
+        final var resolver = new SchemaResolver(Map.of(
+                "Node", object(Map.of(
+                        "name", primitive("string"),
+                        "children", new OpenRpc.JsonSchema(null, null, "array", null, null, null, null, null, null, ref("Node"), null)))), null);
+
+        final var node = resolver.named("Node");
+        assertEquals("#/$defs/Node", node.properties().get("children").items().ref());
+        assertSame(node, resolver.named("Node"));
+        assertSame(node, resolver.resolve(ref("Node")));
+    }
+
+    @Test
+    void sharedReferences() {
+        final var resolver = new SchemaResolver(Map.of(
+                "A", object(Map.of("b", ref("B"), "c", ref("C"))),
+                "B", object(Map.of("c", ref("C"))),
+                "C", primitive("string")), null);
+
+        final var a = resolver.named("A");
+        assertSame(resolver.named("C"), a.properties().get("c"));
+        assertSame(resolver.named("B"), a.properties().get("b"));
+        assertNull(a.ref());
+    }
+
+    @Test
+    void largeDocument() { // was quadratic with the fixed point loop
+        final int count = 20_000;
+        final var world = new HashMap<String, OpenRpc.JsonSchema>(count);
+        world.put("S0", primitive("string"));
+        for (int i = 1; i < count; i++) {
+            world.put("S" + i, object(Map.of("half", ref("S" + (i / 2)), "third", ref("S" + (i / 3)))));
+        }
+        final var all = assertTimeoutPreemptively(ofSeconds(10), () -> new SchemaResolver(world, null).resolveAll());
+        assertEquals(count, all.size());
+        assertSame(all.get("S0"), all.get("S1").properties().get("half"));
+    }
+
+    private static OpenRpc.JsonSchema ref(final String name) {
+        return new OpenRpc.JsonSchema("#/schemas/" + name, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private static OpenRpc.JsonSchema primitive(final String type) {
+        return new OpenRpc.JsonSchema(null, null, type, null, null, null, null, null, null, null, null);
+    }
+
+    private static OpenRpc.JsonSchema object(final Map<String, OpenRpc.JsonSchema> properties) {
+        return new OpenRpc.JsonSchema(null, null, "object", null, null, null, null, properties, null, null, null);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.test;
+
+import io.yupiik.fusion.mcp.configuration.MCPServerConfiguration;
+
+import static io.yupiik.fusion.mcp.configuration.MCPServerConfiguration.DEFAULT;
+
+// enables to override a single part of the default configuration without repeating the whole constructor
+public final class TestConfigurations {
+    private TestConfigurations() {
+        // no-op
+    }
+
+    public static MCPServerConfiguration with(final MCPServerConfiguration.SseConfiguration sse) {
+        return new MCPServerConfiguration(
+                sse, DEFAULT.session(), DEFAULT.backplane(), DEFAULT.tools(),
+                DEFAULT.catalog(), DEFAULT.concurrency(), DEFAULT.resources(), DEFAULT.completion());
+    }
+
+    public static MCPServerConfiguration with(final MCPServerConfiguration.BackplaneConfiguration backplane) {
+        return new MCPServerConfiguration(
+                DEFAULT.sse(), DEFAULT.session(), backplane, DEFAULT.tools(),
+                DEFAULT.catalog(), DEFAULT.concurrency(), DEFAULT.resources(), DEFAULT.completion());
+    }
+
+    public static MCPServerConfiguration with(final MCPServerConfiguration.ToolsConfiguration tools) {
+        return new MCPServerConfiguration(
+                DEFAULT.sse(), DEFAULT.session(), DEFAULT.backplane(), tools,
+                DEFAULT.catalog(), DEFAULT.concurrency(), DEFAULT.resources(), DEFAULT.completion());
+    }
+
+    public static MCPServerConfiguration with(final MCPServerConfiguration.ResourcesConfiguration resources) {
+        return new MCPServerConfiguration(
+                DEFAULT.sse(), DEFAULT.session(), DEFAULT.backplane(), DEFAULT.tools(),
+                DEFAULT.catalog(), DEFAULT.concurrency(), resources, DEFAULT.completion());
+    }
+}
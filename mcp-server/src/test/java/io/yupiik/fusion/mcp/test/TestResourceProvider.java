@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.test;
+
+import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
+import io.yupiik.fusion.http.server.api.Request;
+import io.yupiik.fusion.mcp.api.MCPResourceProvider;
+import io.yupiik.fusion.mcp.model.ListResourcesResponse;
+import io.yupiik.fusion.mcp.model.ReadResourceResponse;
+import io.yupiik.fusion.mcp.model.Resource;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+@ApplicationScoped
+public class TestResourceProvider implements MCPResourceProvider {
+    @Override
+    public List<ListResourcesResponse.Resource> resources() {
+        return List.of(
+                new ListResourcesResponse.Resource(null, null, null, "text/plain", "provided", null, "test://provided", null),
+                new ListResourcesResponse.Resource(null, null, null, "text/plain", "duplicate", null, "test://duplicate", null));
+    }
+
+    @Override
+    public CompletionStage<?> read(final String uri, final Request request) {
+        return completedFuture(new ReadResourceResponse(null, List.of(Resource.text(null, uri, "text/plain", "from the provider"))));
+    }
+}
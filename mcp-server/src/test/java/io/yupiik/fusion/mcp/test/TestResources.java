@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.test;
+
+import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
+import io.yupiik.fusion.framework.build.api.jsonrpc.JsonRpc;
+import io.yupiik.fusion.framework.build.api.jsonrpc.JsonRpcParam;
+import io.yupiik.fusion.framework.build.api.metadata.BeanMetadata;
+import io.yupiik.fusion.mcp.api.MCPResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@ApplicationScoped
+public class TestResources {
+    @MCPResource
+    @BeanMetadata(name = "mcp.resource.uri", value = "test://readme")
+    @BeanMetadata(name = "mcp.resource.mimeType", value = "text/plain")
+    @JsonRpc(value = "test/readme", documentation = "Test readme.")
+    public String readme(@JsonRpcParam final String uri) {
+        return "hello resources";
+    }
+
+    // shadowed by TestResourceProvider which is registered first
+    @MCPResource
+    @BeanMetadata(name = "mcp.resource.uri", value = "test://duplicate")
+    @JsonRpc(value = "test/duplicate", documentation = "Duplicated resource.")
+    public String duplicate(@JsonRpcParam final String uri) {
+        return "from the method";
+    }
+
+    // the returned file is only read when the response is written
+    @MCPResource
+    @BeanMetadata(name = "mcp.resource.uriTemplate", value = "test://files/{name}")
+    @BeanMetadata(name = "mcp.resource.mimeType", value = "text/plain")
+    @JsonRpc(value = "test/file", documentation = "Test files.")
+    public Path file(@JsonRpcParam final String uri, @JsonRpcParam final String name) {
+        try {
+            final var file = Files.createTempFile("fusion-mcp-", ".txt");
+            file.toFile().deleteOnExit();
+            return Files.writeString(file, "content of " + name);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2025 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.fusion.mcp.test;
+
+import io.yupiik.fusion.framework.api.scope.ApplicationScoped;
+import io.yupiik.fusion.framework.build.api.json.JsonModel;
+import io.yupiik.fusion.framework.build.api.jsonrpc.JsonRpc;
+import io.yupiik.fusion.framework.build.api.jsonrpc.JsonRpcParam;
+import io.yupiik.fusion.mcp.api.MCPTool;
+import io.yupiik.fusion.mcp.api.MCPVirtualThread;
+
+@ApplicationScoped
+public class TestTools {
+    @MCPTool
+    @JsonRpc(value = "test/echo", documentation = "Echoes its input.")
+    public Echo echo(@JsonRpcParam(required = true) final String text) {
+        return new Echo(text);
+    }
+
+    @MCPTool
+    @JsonRpc(value = "test/void", documentation = "Does nothing.")
+    public void nothing() {
+        // no-op
+    }
+
+    @MCPTool
+    @JsonRpc(value = "test/fail", documentation = "Always fails.")
+    public Echo fail() {
+        throw new IllegalStateException("test failure");
+    }
+
+    @MCPTool
+    @MCPVirtualThread
+    @JsonRpc(value = "test/thread", documentation = "Describes the thread running the tool.")
+    public ThreadDescription thread() {
+        final var thread = Thread.currentThread();
+        return new ThreadDescription(thread.getName(), thread.isVirtual());
+    }
+
+    @JsonModel
+    public record Echo(String text) {
+    }
+
+    @JsonModel
+    public record ThreadDescription(String name, boolean virtual) {
+    }
+}